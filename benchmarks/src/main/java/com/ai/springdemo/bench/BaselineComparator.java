@@ -0,0 +1,91 @@
+package com.ai.springdemo.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON results on score and normalized allocation per operation.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.ai.springdemo.bench.BaselineComparator baseline.json current.json [0.10]}
+ */
+public class BaselineComparator {
+
+    // Allocation noise below this many bytes per op is ignored
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        int regressions = compare(Path.of(args[0]), Path.of(args[1]), threshold, System.out);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    static int compare(Path baselineFile, Path currentFile, double threshold, PrintStream out) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = index(mapper.readTree(baselineFile.toFile()));
+        Map<String, JsonNode> current = index(mapper.readTree(currentFile.toFile()));
+
+        int regressions = 0;
+        out.printf("%-90s %14s %14s %8s %12s %12s%n", "benchmark", "base", "current", "delta", "base B/op", "cur B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode base = baseline.get(entry.getKey());
+            if (base == null) {
+                out.printf("%-90s %14s%n", entry.getKey(), "(new)");
+                continue;
+            }
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double currentScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double baseAlloc = allocation(base);
+            double currentAlloc = allocation(entry.getValue());
+            double delta = baseScore > 0 ? (currentScore - baseScore) / baseScore : 0;
+
+            // Throughput modes improve upwards, time modes downwards
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            boolean slower = higherIsBetter ? delta < -threshold : delta > threshold;
+            boolean moreAlloc = currentAlloc > baseAlloc * (1 + threshold) + ALLOC_SLACK_BYTES;
+            if (slower || moreAlloc) {
+                regressions++;
+            }
+            out.printf("%-90s %14.3f %14.3f %+7.1f%% %12.1f %12.1f%s%n", entry.getKey(), baseScore, currentScore,
+                    delta * 100, baseAlloc, currentAlloc, slower || moreAlloc ? "  REGRESSION" : "");
+        }
+        out.printf("%d regression(s) beyond %.0f%%%n", regressions, threshold * 100);
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    // The GC profiler's key is prefixed with a separator that changed between JMH versions
+    private static double allocation(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            if (metric.getKey().endsWith("gc.alloc.rate.norm")) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ai.springdemo.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmark suites with the GC profiler, writes the JMH JSON result and, when a baseline is given,
+ * compares against it and exits non-zero on a regression.
+ * <p>
+ * Usage: {@code java -jar benchmarks.jar [--include regex] [--output file] [--baseline file] [--threshold 0.10]}
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String include = "com\\.ai\\.springdemo\\..*Benchmark.*";
+        Path output = Path.of("target", "jmh-result.json");
+        Path baseline = null;
+        double threshold = 0.10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--include" -> include = args[i + 1];
+                case "--output" -> output = Path.of(args[i + 1]);
+                case "--baseline" -> baseline = Path.of(args[i + 1]);
+                case "--threshold" -> threshold = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString());
+        new Runner(options.build()).run();
+
+        if (baseline != null && Files.exists(baseline)) {
+            int regressions = BaselineComparator.compare(baseline, output, threshold, System.out);
+            if (regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+}
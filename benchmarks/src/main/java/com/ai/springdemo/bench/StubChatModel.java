@@ -0,0 +1,53 @@
+package com.ai.springdemo.bench;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ChatModel that answers instantly with a canned reply, so benchmarks measure only the in-process cost around
+ * the model call.
+ */
+public class StubChatModel implements ChatModel {
+
+    private final ChatResponse response;
+    private final List<ChatResponse> chunks;
+
+    public StubChatModel(String reply, int streamChunks) {
+        this.response = response(reply, new DefaultUsage(reply.length() / 4, reply.length() / 4));
+        this.chunks = new ArrayList<>(streamChunks);
+        int step = Math.max(1, reply.length() / Math.max(1, streamChunks));
+        for (int start = 0; start < reply.length(); start += step) {
+            chunks.add(response(reply.substring(start, Math.min(reply.length(), start + step)), null));
+        }
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.fromIterable(chunks);
+    }
+
+    private static ChatResponse response(String text, DefaultUsage usage) {
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder();
+        if (usage != null) {
+            metadata.usage(usage);
+        }
+        return ChatResponse.builder()
+                .generations(List.of(new Generation(new AssistantMessage(text))))
+                .metadata(metadata.build())
+                .build();
+    }
+}
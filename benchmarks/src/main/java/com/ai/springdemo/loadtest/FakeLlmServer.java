@@ -0,0 +1,358 @@
+package com.ai.springdemo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Embeddable stand-in for Ollama and OpenAI that speaks their chat wire formats, blocking and streaming, with a
+ * configurable time to first token, per-token delay, reply length and error rate. Prompts that ask for JSON get
+ * a canned structured payload so the {@code /structured} endpoints parse successfully.
+ * <p>
+ * Point the application at it with {@code SPRING_AI_OLLAMA_BASE_URL} and {@code SPRING_AI_OPENAI_BASE_URL}.
+ */
+public class FakeLlmServer implements AutoCloseable {
+
+    public static final class Settings {
+
+        private Duration timeToFirstToken = Duration.ofMillis(200);
+        private Duration tokenDelay = Duration.ofMillis(20);
+        private int tokens = 64;
+        private double errorRate;
+        private int errorStatus = 500;
+        private String tripPlanJson = TRIP_PLAN_JSON;
+        private String structuredResponseJson = STRUCTURED_RESPONSE_JSON;
+
+        public Settings timeToFirstToken(Duration timeToFirstToken) {
+            this.timeToFirstToken = timeToFirstToken;
+            return this;
+        }
+
+        public Settings tokenDelay(Duration tokenDelay) {
+            this.tokenDelay = tokenDelay;
+            return this;
+        }
+
+        public Settings tokens(int tokens) {
+            this.tokens = Math.max(1, tokens);
+            return this;
+        }
+
+        public Settings errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Settings errorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        public Settings tripPlanJson(String tripPlanJson) {
+            this.tripPlanJson = tripPlanJson;
+            return this;
+        }
+
+        public Settings structuredResponseJson(String structuredResponseJson) {
+            this.structuredResponseJson = structuredResponseJson;
+            return this;
+        }
+    }
+
+    static final String TRIP_PLAN_JSON = """
+            {"destination": "Portugal", "totalDays": 2, "plans": [
+             {"from": "Lisbon", "to": "Sintra", "transport": "Train", "activities": "Pena Palace",
+              "accommodation": "Guesthouse", "dateOfVisit": "2025-05-01"},
+             {"from": "Sintra", "to": "Cascais", "transport": "Bus", "activities": "Coastal walk",
+              "accommodation": "Hotel", "dateOfVisit": "2025-05-02"}]}""";
+
+    static final String STRUCTURED_RESPONSE_JSON = """
+            {"topic": "Load testing", "summary": "A canned answer from the fake server.",
+             "keyPoints": ["One", "Two"], "steps": ["Start", "Finish"], "risks": ["None"],
+             "references": ["Fake server"]}""";
+
+    private static final String MODEL_LIST_OLLAMA = "{\"models\":[{\"name\":\"llama3.2:1b\",\"model\":\"llama3.2:1b\"}]}";
+    private static final String MODEL_LIST_OPENAI = "{\"object\":\"list\",\"data\":[{\"id\":\"gpt-3.5-turbo\",\"object\":\"model\"}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private FakeLlmServer(int port, Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        // One thread per exchange; the handlers sleep to simulate generation
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/chat", exchange -> handle(exchange, this::ollamaChat));
+        server.createContext("/api/tags", exchange -> handle(exchange, ex -> json(ex, 200, MODEL_LIST_OLLAMA)));
+        server.createContext("/api/ps", exchange -> handle(exchange, ex -> json(ex, 200, MODEL_LIST_OLLAMA)));
+        server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::openAiChat));
+        server.createContext("/v1/models", exchange -> handle(exchange, ex -> json(ex, 200, MODEL_LIST_OPENAI)));
+        server.start();
+    }
+
+    public static FakeLlmServer start(int port, Settings settings) throws IOException {
+        return new FakeLlmServer(port, settings);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Usage: {@code java -cp benchmarks.jar com.ai.springdemo.loadtest.FakeLlmServer [--port 11434]
+     * [--ttft-ms 200] [--token-delay-ms 20] [--tokens 64] [--error-rate 0.0] [--error-status 500]}
+     */
+    public static void main(String[] args) throws Exception {
+        int port = 11434;
+        Settings settings = new Settings();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(value);
+                case "--ttft-ms" -> settings.timeToFirstToken(Duration.ofMillis(Long.parseLong(value)));
+                case "--token-delay-ms" -> settings.tokenDelay(Duration.ofMillis(Long.parseLong(value)));
+                case "--tokens" -> settings.tokens(Integer.parseInt(value));
+                case "--error-rate" -> settings.errorRate(Double.parseDouble(value));
+                case "--error-status" -> settings.errorStatus(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        FakeLlmServer server = start(port, settings);
+        System.out.println("Fake LLM server listening on " + server.getBaseUrl());
+        System.out.println("  SPRING_AI_OLLAMA_BASE_URL=" + server.getBaseUrl());
+        System.out.println("  SPRING_AI_OPENAI_BASE_URL=" + server.getBaseUrl() + "  (any OPENAI_API_KEY works)");
+        Thread.currentThread().join();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            handler.handle(exchange);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            // Client went away mid-stream; nothing to report back
+        }
+    }
+
+    private void ollamaChat(HttpExchange exchange) throws Exception {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        if (injectError(exchange)) {
+            return;
+        }
+        String model = request.path("model").asText("llama3.2:1b");
+        List<String> chunks = reply(request.path("messages"));
+        int promptTokens = promptTokens(request.path("messages"));
+        // Ollama streams unless told otherwise
+        boolean stream = request.path("stream").asBoolean(true);
+        long start = System.nanoTime();
+
+        Thread.sleep(settings.timeToFirstToken.toMillis());
+        if (!stream) {
+            generate(chunks, null);
+            ObjectNode body = ollamaChunk(model, String.join("", chunks), true);
+            ollamaDone(body, promptTokens, chunks.size(), start);
+            json(exchange, 200, objectMapper.writeValueAsString(body));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        generate(chunks, chunk -> writeLine(out, objectMapper.writeValueAsString(ollamaChunk(model, chunk, false))));
+        ObjectNode done = ollamaChunk(model, "", true);
+        ollamaDone(done, promptTokens, chunks.size(), start);
+        writeLine(out, objectMapper.writeValueAsString(done));
+    }
+
+    private void openAiChat(HttpExchange exchange) throws Exception {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        if (injectError(exchange)) {
+            return;
+        }
+        String model = request.path("model").asText("gpt-3.5-turbo");
+        List<String> chunks = reply(request.path("messages"));
+        int promptTokens = promptTokens(request.path("messages"));
+        String id = "chatcmpl-" + UUID.randomUUID();
+        long created = Instant.now().getEpochSecond();
+
+        Thread.sleep(settings.timeToFirstToken.toMillis());
+        if (!request.path("stream").asBoolean(false)) {
+            generate(chunks, null);
+            ObjectNode body = objectMapper.createObjectNode()
+                    .put("id", id)
+                    .put("object", "chat.completion")
+                    .put("created", created)
+                    .put("model", model);
+            ObjectNode choice = body.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop");
+            choice.putObject("message").put("role", "assistant").put("content", String.join("", chunks));
+            usage(body, promptTokens, chunks.size());
+            json(exchange, 200, objectMapper.writeValueAsString(body));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        generate(chunks, chunk -> {
+            ObjectNode body = openAiChunk(id, created, model);
+            ((ArrayNode) body.get("choices")).addObject().put("index", 0).putNull("finish_reason")
+                    .putObject("delta").put("role", "assistant").put("content", chunk);
+            writeEvent(out, objectMapper.writeValueAsString(body));
+        });
+        ObjectNode finish = openAiChunk(id, created, model);
+        ((ArrayNode) finish.get("choices")).addObject().put("index", 0).put("finish_reason", "stop").putObject("delta");
+        writeEvent(out, objectMapper.writeValueAsString(finish));
+        if (request.path("stream_options").path("include_usage").asBoolean(false)) {
+            ObjectNode usage = openAiChunk(id, created, model);
+            usage(usage, promptTokens, chunks.size());
+            writeEvent(out, objectMapper.writeValueAsString(usage));
+        }
+        writeEvent(out, "[DONE]");
+    }
+
+    private boolean injectError(HttpExchange exchange) throws IOException {
+        if (settings.errorRate <= 0 || ThreadLocalRandom.current().nextDouble() >= settings.errorRate) {
+            return false;
+        }
+        json(exchange, settings.errorStatus, "{\"error\":{\"message\":\"Injected failure\",\"type\":\"server_error\"}}");
+        return true;
+    }
+
+    private interface ChunkWriter {
+        void write(String chunk) throws IOException;
+    }
+
+    private void generate(List<String> chunks, ChunkWriter writer) throws Exception {
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i > 0) {
+                Thread.sleep(settings.tokenDelay.toMillis());
+            }
+            if (writer != null) {
+                writer.write(chunks.get(i));
+            }
+        }
+    }
+
+    // Structured prompts carry the converter's format instructions; answer those with JSON cut into tokens
+    private List<String> reply(JsonNode messages) {
+        String prompt = messages.toString();
+        String text;
+        if (prompt.contains("keyPoints")) {
+            text = settings.structuredResponseJson;
+        } else if (prompt.contains("destination") && prompt.indexOf("\\\"array\\\"") >= 0
+                && prompt.indexOf("\\\"array\\\"") < prompt.indexOf("destination")) {
+            // A list schema declares the top-level array before the item properties
+            text = "[" + settings.tripPlanJson + "]";
+        } else if (prompt.contains("JSON")) {
+            text = settings.tripPlanJson;
+        } else if (prompt.contains("comma separated")) {
+            text = "Lisbon, Porto, Sintra, Cascais, Evora";
+        } else {
+            List<String> words = new ArrayList<>(settings.tokens);
+            for (int i = 0; i < settings.tokens; i++) {
+                words.add("token" + i + " ");
+            }
+            return words;
+        }
+        List<String> chunks = new ArrayList<>(settings.tokens);
+        int step = Math.max(1, (text.length() + settings.tokens - 1) / settings.tokens);
+        for (int start = 0; start < text.length(); start += step) {
+            chunks.add(text.substring(start, Math.min(text.length(), start + step)));
+        }
+        return chunks;
+    }
+
+    private static int promptTokens(JsonNode messages) {
+        int chars = 0;
+        for (JsonNode message : messages) {
+            chars += message.path("content").asText().length();
+        }
+        return Math.max(1, chars / 4);
+    }
+
+    private ObjectNode ollamaChunk(String model, String content, boolean done) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("model", model)
+                .put("created_at", Instant.now().toString());
+        body.putObject("message").put("role", "assistant").put("content", content);
+        return body.put("done", done);
+    }
+
+    private static void ollamaDone(ObjectNode body, int promptTokens, int evalCount, long start) {
+        long elapsed = System.nanoTime() - start;
+        body.put("done_reason", "stop")
+                .put("total_duration", elapsed)
+                .put("load_duration", 0)
+                .put("prompt_eval_count", promptTokens)
+                .put("prompt_eval_duration", 0)
+                .put("eval_count", evalCount)
+                .put("eval_duration", elapsed);
+    }
+
+    private ObjectNode openAiChunk(String id, long created, String model) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("object", "chat.completion.chunk")
+                .put("created", created)
+                .put("model", model);
+        body.putArray("choices");
+        return body;
+    }
+
+    private static void usage(ObjectNode body, int promptTokens, int completionTokens) {
+        body.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static void json(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
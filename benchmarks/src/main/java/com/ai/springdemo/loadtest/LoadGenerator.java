@@ -0,0 +1,266 @@
+package com.ai.springdemo.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the application's chat and structured endpoints. Requests are issued on a fixed
+ * schedule regardless of how fast earlier ones complete, and latency is measured from the scheduled send time, so
+ * a saturated server shows up as growing latency instead of silently lowering the offered rate.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.ai.springdemo.loadtest.LoadGenerator [--target http://localhost:9292]
+ * [--scenario chat|chat-stream|structured|mixed] [--rps 20] [--duration-seconds 60] [--warmup-seconds 5]
+ * [--model ollama] [--max-in-flight 2000] [--clients 64] [--api-key KEY] [--fake-server-port 0]}
+ * <p>
+ * Requests are spread round-robin over {@code --clients} virtual clients, each sending its own {@code X-Api-Key}, so
+ * the application's per-client rate limiter sees that many callers rather than one. {@code --api-key} sends that
+ * single key on every request instead.
+ * <p>
+ * With {@code --fake-server-port} the generator also starts a {@link FakeLlmServer} on that port (the application
+ * must already be pointed at it).
+ */
+public class LoadGenerator {
+
+    private static final String[] MIXED = {"chat", "chat-stream", "chat-stream", "structured"};
+    private static final String API_KEY_HEADER = "X-Api-Key";
+
+    private final HttpClient httpClient;
+    private final ExecutorService readers = Executors.newCachedThreadPool();
+    private final String target;
+    private final String model;
+    private final int clients;
+    private final String apiKey;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+
+    private LoadGenerator(String target, String model, int clients, String apiKey) {
+        this.target = target;
+        this.model = model;
+        this.clients = Math.max(1, clients);
+        this.apiKey = apiKey;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(readers)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = "http://localhost:9292";
+        String scenario = "mixed";
+        double rps = 20;
+        int durationSeconds = 60;
+        int warmupSeconds = 5;
+        String model = "ollama";
+        int maxInFlight = 2000;
+        int clients = 64;
+        String apiKey = null;
+        Integer fakeServerPort = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--target" -> target = value;
+                case "--scenario" -> scenario = value;
+                case "--rps" -> rps = Double.parseDouble(value);
+                case "--duration-seconds" -> durationSeconds = Integer.parseInt(value);
+                case "--warmup-seconds" -> warmupSeconds = Integer.parseInt(value);
+                case "--model" -> model = value;
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--api-key" -> apiKey = value;
+                case "--fake-server-port" -> fakeServerPort = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        FakeLlmServer fakeServer = fakeServerPort != null
+                ? FakeLlmServer.start(fakeServerPort, new FakeLlmServer.Settings())
+                : null;
+        try {
+            new LoadGenerator(target, model, clients, apiKey).run(scenario, rps, warmupSeconds, durationSeconds, maxInFlight);
+        } finally {
+            if (fakeServer != null) {
+                fakeServer.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run(String scenario, double rps, int warmupSeconds, int durationSeconds, int maxInFlight)
+            throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicInteger inFlight = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        System.out.printf("Offering %.1f req/s of '%s' to %s from %s for %ds after %ds warm-up%n",
+                rps, scenario, target, apiKey != null ? "one API key" : clients + " client(s)",
+                durationSeconds, warmupSeconds);
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                break;
+            }
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            String kind = "mixed".equals(scenario) ? MIXED[(int) (i % MIXED.length)] : scenario;
+            boolean measured = scheduled >= measureFrom;
+            Stats kindStats = measured ? stats.computeIfAbsent(kind, k -> new Stats()) : new Stats();
+            if (inFlight.get() >= maxInFlight) {
+                kindStats.dropped.incrementAndGet();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            pending.add(send(kind, scheduled, kindStats).whenComplete((v, ex) -> inFlight.decrementAndGet()));
+            pending.removeIf(CompletableFuture::isDone);
+        }
+        System.out.println("Waiting for " + pending.size() + " in-flight request(s)");
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .completeOnTimeout(null, 2, TimeUnit.MINUTES)
+                .join();
+        report(durationSeconds);
+        readers.shutdownNow();
+    }
+
+    private CompletableFuture<Void> send(String kind, long scheduled, Stats stats) {
+        // A unique message per request keeps the response cache and coalescer out of the measurement
+        long n = sequence.incrementAndGet();
+        String message = "Plan a two day trip to Portugal, request " + n;
+        String body = "{\"message\":\"" + message + "\",\"model\":\"" + model + "\"}";
+        String key = apiKey != null ? apiKey : "loadtest-" + (n % clients);
+        HttpRequest request = switch (kind) {
+            case "chat" -> HttpRequest.newBuilder(URI.create(target + "/openai/api/chat?message="
+                            + URLEncoder.encode(message, StandardCharsets.UTF_8) + "&model=" + model))
+                    .header(API_KEY_HEADER, key)
+                    .GET()
+                    .build();
+            case "chat-stream" -> HttpRequest.newBuilder(URI.create(target + "/openai/api/chat-stream"))
+                    .header(API_KEY_HEADER, key)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            case "structured" -> HttpRequest.newBuilder(URI.create(target + "/openai/api/structured/trip-plan"))
+                    .header(API_KEY_HEADER, key)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown scenario: " + kind);
+        };
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenAcceptAsync(response -> {
+                    long firstByte = drain(response.body());
+                    long done = System.nanoTime();
+                    if (response.statusCode() >= 400) {
+                        stats.errors.computeIfAbsent(Integer.toString(response.statusCode()), s -> new AtomicInteger())
+                                .incrementAndGet();
+                        return;
+                    }
+                    stats.record(done - scheduled, firstByte > 0 ? firstByte - scheduled : done - scheduled);
+                }, readers)
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    stats.errors.computeIfAbsent(cause.getClass().getSimpleName(), s -> new AtomicInteger())
+                            .incrementAndGet();
+                    return null;
+                });
+    }
+
+    // Returns when the first body byte arrived, which for a stream is the first token frame
+    private static long drain(InputStream body) {
+        byte[] buffer = new byte[8192];
+        long firstByte = 0;
+        try (body) {
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                if (read > 0 && firstByte == 0) {
+                    firstByte = System.nanoTime();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return firstByte;
+    }
+
+    private void report(int durationSeconds) {
+        System.out.printf("%n%-12s %8s %8s %8s %9s | %9s %9s %9s %9s | %9s %9s %9s%n", "scenario", "ok", "errors",
+                "dropped", "req/s", "lat p50", "lat p90", "lat p99", "lat max", "ttft p50", "ttft p90", "ttft p99");
+        stats.forEach((kind, s) -> {
+            long[] latency = s.sortedLatencies();
+            long[] ttft = s.sortedTtfts();
+            int errors = s.errors.values().stream().mapToInt(AtomicInteger::get).sum();
+            System.out.printf("%-12s %8d %8d %8d %9.1f | %9s %9s %9s %9s | %9s %9s %9s%n", kind, latency.length,
+                    errors, s.dropped.get(), latency.length / (double) durationSeconds,
+                    millis(latency, 0.50), millis(latency, 0.90), millis(latency, 0.99), millis(latency, 1.0),
+                    millis(ttft, 0.50), millis(ttft, 0.90), millis(ttft, 0.99));
+            if (!s.errors.isEmpty()) {
+                System.out.println("             errors by cause: " + s.errors);
+            }
+        });
+    }
+
+    private static String millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.1fms", sorted[Math.max(0, index)] / 1e6);
+    }
+
+    private static final class Stats {
+
+        private final AtomicInteger dropped = new AtomicInteger();
+        private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+        private long[] latencies = new long[1024];
+        private long[] ttfts = new long[1024];
+        private int count;
+
+        private synchronized void record(long latency, long ttft) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                ttfts = Arrays.copyOf(ttfts, count * 2);
+            }
+            latencies[count] = latency;
+            ttfts[count] = ttft;
+            count++;
+        }
+
+        private synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private synchronized long[] sortedTtfts() {
+            long[] sorted = Arrays.copyOf(ttfts, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.StructuredResponse;
+import com.ai.springdemo.dto.TripPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.converter.BeanOutputConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of model output into the structured DTOs: Spring AI's {@link BeanOutputConverter} as a reference
+ * against the precomputed, repairing converters the service actually uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputConverterBenchmark {
+
+    private static final String PLAN = """
+            {"from": "Lisbon", "to": "Sintra", "transport": "Train from Rossio station",
+             "activities": "Pena Palace, Quinta da Regaleira and the Moorish Castle",
+             "accommodation": "Guesthouse in the historic centre", "dateOfVisit": "2025-05-%02d"}""";
+
+    private String tripPlanJson;
+    private String tripPlansJson;
+    private String fencedTripPlan;
+    private String structuredResponseJson;
+    private BeanOutputConverter<TripPlan> beanTripPlan;
+    private BeanOutputConverter<StructuredResponse> beanStructuredResponse;
+    private OutputConverterRegistry registry;
+
+    @Setup
+    public void setup() {
+        StringBuilder plans = new StringBuilder();
+        for (int day = 1; day <= 5; day++) {
+            plans.append(day > 1 ? "," : "").append(String.format(PLAN, day));
+        }
+        tripPlanJson = "{\"destination\": \"Portugal\", \"totalDays\": 5, \"plans\": [" + plans + "]}";
+        tripPlansJson = "[" + tripPlanJson + "," + tripPlanJson + "," + tripPlanJson + "]";
+        // What small local models often return: a fenced block with a trailing comma
+        fencedTripPlan = "Here is your plan:\n```json\n" + tripPlanJson.replace("]}", "],}") + "\n```";
+        structuredResponseJson = """
+                {"topic": "Connection pooling", "summary": "Reuse TCP and TLS sessions across requests.",
+                 "keyPoints": ["Fewer handshakes", "Lower tail latency", "Bounded resource use"],
+                 "steps": ["Size the pool", "Enable keep-alive", "Warm connections at startup"],
+                 "risks": ["Stale connections", "Pool exhaustion under bursts"],
+                 "references": ["RFC 9112", "HttpClient 5 documentation"]}""";
+
+        beanTripPlan = new BeanOutputConverter<>(TripPlan.class);
+        beanStructuredResponse = new BeanOutputConverter<>(StructuredResponse.class);
+        registry = new OutputConverterRegistry(new ObjectMapper());
+    }
+
+    @Benchmark
+    public TripPlan beanConverterTripPlan() {
+        return beanTripPlan.convert(tripPlanJson);
+    }
+
+    @Benchmark
+    public TripPlan registryTripPlan() {
+        return registry.tripPlan().convert(tripPlanJson);
+    }
+
+    @Benchmark
+    public TripPlan registryTripPlanRepaired() {
+        return registry.tripPlan().convert(fencedTripPlan);
+    }
+
+    @Benchmark
+    public List<TripPlan> registryTripPlans() {
+        return registry.tripPlans().convert(tripPlansJson);
+    }
+
+    @Benchmark
+    public StructuredResponse beanConverterStructuredResponse() {
+        return beanStructuredResponse.convert(structuredResponseJson);
+    }
+
+    @Benchmark
+    public StructuredResponse registryStructuredResponse() {
+        return registry.structuredResponse().convert(structuredResponseJson);
+    }
+
+    // Cost the service paid per request before converters were built once at startup
+    @Benchmark
+    public String beanConverterConstructionAndFormat() {
+        return new BeanOutputConverter<>(TripPlan.class).getFormat();
+    }
+}
@@ -0,0 +1,122 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.advisor.AuditTokenUsageAdvisor;
+import com.ai.springdemo.advisor.LlmMetrics;
+import com.ai.springdemo.bench.StubChatModel;
+import com.ai.springdemo.dto.ChatRequest;
+import com.ai.springdemo.ledger.UsageLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.ai.openai.OpenAiChatOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request assembly in {@link OpenAIChatService} across conversation lengths, plus a full {@link ChatClient}
+ * round trip through the audit advisor against a stub model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblyBenchmark {
+
+    private static final String TURN = "Could you compare the trade-offs between the two approaches we discussed, "
+            + "with attention to latency, operational cost and how each behaves when the upstream model is slow?";
+
+    @Param({"0", "8", "32", "128"})
+    private int historySize;
+
+    private OpenAIChatService chatService;
+    private ChatRequest request;
+    private ChatClient chatClient;
+
+    @Setup
+    public void setup() {
+        // The prompt builders only read the request, so none of the collaborators are needed
+        chatService = new OpenAIChatService(null, null, null, null, null, null);
+
+        List<ChatRequest.ConversationMessage> history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(new ChatRequest.ConversationMessage(i % 2 == 0 ? "user" : "assistant", TURN + " #" + i));
+        }
+        ChatRequest.ChatOptions options = new ChatRequest.ChatOptions();
+        options.setTemperature(0.7);
+        options.setMaxTokens(512);
+        options.setTopP(0.9);
+        options.setPresencePenalty(0.1);
+
+        request = new ChatRequest();
+        request.setModel("ollama");
+        request.setSystemPrompt("You are a concise assistant. Answer in plain English.");
+        request.setMessage(TURN);
+        request.setConversationHistory(history);
+        request.setOptions(options);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // The ledger is never started here, so recording is a no-op and no files are written
+        AuditTokenUsageAdvisor auditAdvisor = new AuditTokenUsageAdvisor(new LlmMetrics(meterRegistry),
+                new UsageLedger(meterRegistry));
+        chatClient = ChatClient.builder(new StubChatModel(TURN, 16))
+                .defaultAdvisors(spec -> spec.advisors(auditAdvisor)
+                        .param(AuditTokenUsageAdvisor.PROVIDER, "ollama")
+                        .param(AuditTokenUsageAdvisor.MODEL, "stub"))
+                .build();
+    }
+
+    @Benchmark
+    public Prompt buildRolePrompt() {
+        return chatService.buildRolePrompt(request);
+    }
+
+    @Benchmark
+    public String buildOllamaPrompt() {
+        return chatService.buildOllamaPrompt(request);
+    }
+
+    @Benchmark
+    public OpenAiChatOptions buildOpenAiOptions() {
+        return chatService.buildOpenAiOptions(request);
+    }
+
+    @Benchmark
+    public OllamaChatOptions buildOllamaOptions() {
+        return chatService.buildOllamaOptions(request);
+    }
+
+    @Benchmark
+    public String chatClientCall() {
+        return chatClient.prompt(chatService.buildRolePrompt(request))
+                .options(chatService.buildOllamaOptions(request))
+                .advisors(advisor -> advisor.param(AuditTokenUsageAdvisor.ENDPOINT, "bench"))
+                .call()
+                .content();
+    }
+
+    @Benchmark
+    public String chatClientStream() {
+        return chatClient.prompt(chatService.buildRolePrompt(request))
+                .options(chatService.buildOllamaOptions(request))
+                .advisors(advisor -> advisor.param(AuditTokenUsageAdvisor.ENDPOINT, "bench"))
+                .stream()
+                .content()
+                .blockLast();
+    }
+}
@@ -0,0 +1,65 @@
+package com.ai.springdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PromptTemplateService}: a full (re)load from the classpath versus the per-request lookups served from
+ * the loaded snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptTemplateBenchmark {
+
+    private PromptTemplateService templateService;
+    private Map<String, String> variables;
+
+    @Setup
+    public void setup() throws IOException {
+        templateService = new PromptTemplateService(new ObjectMapper());
+        templateService.init();
+        variables = Map.of(
+                "language", "Java",
+                "focus", "performance",
+                "code", "for (String s : list) { result = result + s; }");
+    }
+
+    @Benchmark
+    public PromptTemplateService load() throws IOException {
+        PromptTemplateService service = new PromptTemplateService(new ObjectMapper());
+        service.init();
+        return service;
+    }
+
+    @Benchmark
+    public byte[] templatesJson() {
+        return templateService.getTemplatesJson();
+    }
+
+    @Benchmark
+    public String getTemplateSource() {
+        return templateService.getTemplate("trip-guide-template").getSource();
+    }
+
+    @Benchmark
+    public String render() {
+        return templateService.render("code-review", variables);
+    }
+}
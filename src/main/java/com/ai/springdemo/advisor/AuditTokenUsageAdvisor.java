@@ -1,37 +1,184 @@
 package com.ai.springdemo.advisor;
 
+import com.ai.springdemo.ledger.UsageLedger;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
 import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
 import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
-public class AuditTokenUsageAdvisor implements CallAdvisor {
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AuditTokenUsageAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final String PROVIDER = "audit.provider";
+    public static final String MODEL = "audit.model";
+    public static final String ENDPOINT = "audit.endpoint";
 
     private static final Logger logger = LoggerFactory.getLogger(AuditTokenUsageAdvisor.class);
 
+    private final LlmMetrics llmMetrics;
+    private final UsageLedger usageLedger;
+
+    public AuditTokenUsageAdvisor(LlmMetrics llmMetrics, UsageLedger usageLedger) {
+        this.llmMetrics = llmMetrics;
+        this.usageLedger = usageLedger;
+    }
+
     @Override
     public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
-        ChatClientResponse chatClientResponse = callAdvisorChain.nextCall(chatClientRequest);
+        Tags tags = tags(chatClientRequest);
+        long start = System.nanoTime();
+        ChatClientResponse chatClientResponse;
+        try {
+            chatClientResponse = callAdvisorChain.nextCall(chatClientRequest);
+        } catch (RuntimeException ex) {
+            llmMetrics.recordError(tags, ex);
+            ledger(chatClientRequest, UsageLedger.STATUS_ERROR, 0, 0, 0, System.nanoTime() - start);
+            throw ex;
+        }
+        long elapsed = System.nanoTime() - start;
         ChatResponse chatResponse = chatClientResponse.chatResponse();
 
+        int inputTokens = 0;
+        int cachedTokens = 0;
+        int outputTokens = 0;
         if (chatResponse != null) {
             Usage usage = chatResponse.getMetadata().getUsage();
             if (usage != null) {
-                int inputTokens = usage.getPromptTokens();
-                int outputTokens = usage.getCompletionTokens();
+                inputTokens = usage.getPromptTokens();
+                cachedTokens = cachedTokens(usage);
+                outputTokens = usage.getCompletionTokens();
                 int totalTokens = usage.getTotalTokens();
-                logger.info("Token Usage - input Tokens: {}, output Tokens: {}, Total Tokens: {}",
-                        inputTokens, outputTokens, totalTokens);
+                logger.debug("Token Usage - input Tokens: {}, cached input Tokens: {}, output Tokens: {}, Total Tokens: {}",
+                        inputTokens, cachedTokens, outputTokens, totalTokens);
+                llmMetrics.recordUsage(tags, inputTokens, cachedTokens, outputTokens);
             }
         }
 
+        // A blocking call only sees the whole response, so it records latency but no time to first token
+        llmMetrics.recordLatency(tags, elapsed, outputTokens);
+        ledger(chatClientRequest, UsageLedger.STATUS_OK, inputTokens, cachedTokens, outputTokens, elapsed);
         return chatClientResponse;
     }
 
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        Tags tags = tags(chatClientRequest);
+        return Flux.defer(() -> {
+            // One small accumulator per stream; chunks are only inspected, never retained
+            StreamAudit audit = new StreamAudit(chatClientRequest, tags);
+            return streamAdvisorChain.nextStream(chatClientRequest)
+                    .doOnNext(audit::onChunk)
+                    .doOnComplete(audit::onComplete)
+                    .doOnError(audit::onError)
+                    .doOnCancel(audit::onCancel);
+        });
+    }
+
+    static Tags tags(ChatClientRequest chatClientRequest) {
+        return LlmMetrics.tags(
+                (String) chatClientRequest.context().get(PROVIDER),
+                (String) chatClientRequest.context().get(MODEL),
+                (String) chatClientRequest.context().get(ENDPOINT));
+    }
+
+    private void ledger(ChatClientRequest chatClientRequest, byte status, int inputTokens, int cachedTokens,
+                        int outputTokens, long nanos) {
+        usageLedger.record(
+                (String) chatClientRequest.context().get(PROVIDER),
+                (String) chatClientRequest.context().get(MODEL),
+                (String) chatClientRequest.context().get(ENDPOINT),
+                status, inputTokens, cachedTokens, outputTokens, nanos);
+    }
+
+    // Only OpenAI reports prompt-cache hits; Ollama reuses its KV cache silently (visible as a lower prompt-eval count)
+    static int cachedTokens(Usage usage) {
+        if (usage.getNativeUsage() instanceof OpenAiApi.Usage openAiUsage
+                && openAiUsage.promptTokensDetails() != null
+                && openAiUsage.promptTokensDetails().cachedTokens() != null) {
+            return openAiUsage.promptTokensDetails().cachedTokens();
+        }
+        return 0;
+    }
+
+    private final class StreamAudit {
+
+        private final ChatClientRequest request;
+        private final Tags tags;
+        private final long start = System.nanoTime();
+        private long lastChunkAt;
+        private int chunks;
+        private Timer chunkGapTimer;
+        private Usage usage;
+
+        private StreamAudit(ChatClientRequest request, Tags tags) {
+            this.request = request;
+            this.tags = tags;
+        }
+
+        private void onChunk(ChatClientResponse chunk) {
+            long now = System.nanoTime();
+            if (chunks == 0) {
+                llmMetrics.recordTimeToFirstToken(tags, now - start);
+                chunkGapTimer = llmMetrics.chunkGapTimer(tags);
+            } else {
+                chunkGapTimer.record(now - lastChunkAt, TimeUnit.NANOSECONDS);
+            }
+            lastChunkAt = now;
+            chunks++;
+
+            // Providers report usage on the final chunk (OpenAI needs stream usage enabled in the options)
+            ChatResponse chatResponse = chunk.chatResponse();
+            if (chatResponse != null) {
+                Usage chunkUsage = chatResponse.getMetadata().getUsage();
+                if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                    usage = chunkUsage;
+                }
+            }
+        }
+
+        private void onComplete() {
+            int inputTokens = 0;
+            int cachedTokens = 0;
+            int outputTokens = chunks;
+            if (usage != null) {
+                inputTokens = usage.getPromptTokens();
+                cachedTokens = cachedTokens(usage);
+                outputTokens = usage.getCompletionTokens();
+                logger.debug("Token Usage (stream) - input Tokens: {}, cached input Tokens: {}, output Tokens: {}, Total Tokens: {}",
+                        inputTokens, cachedTokens, outputTokens, usage.getTotalTokens());
+                llmMetrics.recordUsage(tags, inputTokens, cachedTokens, outputTokens);
+            }
+            long elapsed = System.nanoTime() - start;
+            llmMetrics.recordLatency(tags, elapsed, outputTokens);
+            ledger(request, UsageLedger.STATUS_OK, inputTokens, cachedTokens, outputTokens, elapsed);
+        }
+
+        private void onError(Throwable error) {
+            llmMetrics.recordError(tags, error);
+            ledger(request, UsageLedger.STATUS_ERROR, 0, 0, chunks, System.nanoTime() - start);
+        }
+
+        private void onCancel() {
+            // Downstream cancelled: a client disconnect, a lost hedge or a coalesced stream nobody listens to any more
+            logger.info("Stream cancelled after {} chunk(s)", chunks);
+            llmMetrics.recordStreamCancelled(tags, chunks);
+            ledger(request, UsageLedger.STATUS_CANCELLED, 0, 0, chunks, System.nanoTime() - start);
+        }
+    }
+
     @Override
     public String getName() {
         return "AuditTokenUsageAdvisor";
@@ -0,0 +1,67 @@
+package com.ai.springdemo.advisor;
+
+import com.ai.springdemo.service.ModelProvider;
+import com.ai.springdemo.service.ProviderBulkhead;
+import com.ai.springdemo.service.RequestPriority;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import reactor.core.publisher.Flux;
+
+public class BulkheadAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final String PRIORITY = "scheduler.priority";
+
+    private final ProviderBulkhead bulkhead;
+    private final ModelProvider provider;
+
+    public BulkheadAdvisor(ProviderBulkhead bulkhead, ModelProvider provider) {
+        this.bulkhead = bulkhead;
+        this.provider = provider;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
+        RequestPriority priority = priority(chatClientRequest, RequestPriority.INTERACTIVE);
+        bulkhead.acquire(provider, priority);
+        try {
+            return callAdvisorChain.nextCall(chatClientRequest);
+        } finally {
+            bulkhead.release(provider, priority);
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
+        RequestPriority priority = priority(chatClientRequest, RequestPriority.INTERACTIVE_STREAM);
+        // Waiting for a slot parks nothing: the subscription resumes on whichever thread releases one
+        return bulkhead.acquireReactive(provider, priority)
+                .thenMany(Flux.defer(() -> {
+                    try {
+                        return streamAdvisorChain.nextStream(chatClientRequest)
+                                .doFinally(signal -> bulkhead.release(provider, priority));
+                    } catch (RuntimeException ex) {
+                        bulkhead.release(provider, priority);
+                        throw ex;
+                    }
+                }));
+    }
+
+    private static RequestPriority priority(ChatClientRequest request, RequestPriority fallback) {
+        Object priority = request.context().get(PRIORITY);
+        return priority instanceof RequestPriority requestPriority ? requestPriority : fallback;
+    }
+
+    @Override
+    public String getName() {
+        return "BulkheadAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return 1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ai.springdemo.advisor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class LlmMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public LlmMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static Tags tags(String provider, String model, String endpoint) {
+        return Tags.of("provider", valueOrUnknown(provider), "model", valueOrUnknown(model),
+                "endpoint", valueOrUnknown(endpoint));
+    }
+
+    public void recordUsage(Tags tags, int inputTokens, int cachedTokens, int outputTokens) {
+        summary("llm.tokens.input", "tokens", tags).record(inputTokens);
+        summary("llm.tokens.cached", "tokens", tags).record(cachedTokens);
+        summary("llm.tokens.output", "tokens", tags).record(outputTokens);
+    }
+
+    public void recordLatency(Tags tags, long nanos, int outputTokens) {
+        timer("llm.request.latency", tags).record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > 0 && outputTokens > 0) {
+            summary("llm.tokens.per.second", "tokens/s", tags).record(outputTokens / (nanos / 1e9));
+        }
+    }
+
+    public void recordTimeToFirstToken(Tags tags, long nanos) {
+        timer("llm.request.ttft", tags).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer chunkGapTimer(Tags tags) {
+        return timer("llm.stream.chunk.gap", tags);
+    }
+
+    public void recordStreamCancelled(Tags tags, int chunks) {
+        meterRegistry.counter("llm.stream.cancelled", tags).increment();
+        summary("llm.stream.cancelled.chunks", "chunks", tags).record(chunks);
+    }
+
+    public void recordError(Tags tags, Throwable error) {
+        meterRegistry.counter("llm.request.errors", tags.and("exception", error.getClass().getSimpleName()))
+                .increment();
+    }
+
+    private Timer timer(String name, Tags tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary summary(String name, String unit, Tags tags) {
+        return DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String valueOrUnknown(String value) {
+        return value != null && !value.isEmpty() ? value : "unknown";
+    }
+}
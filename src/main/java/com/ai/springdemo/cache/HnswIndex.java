@@ -0,0 +1,305 @@
+package com.ai.springdemo.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Fixed-capacity HNSW graph over unit-length vectors, scored by inner product (cosine similarity). Vectors live in
+ * one direct buffer so a full index costs the heap only its adjacency lists. Nodes are never unlinked: removal
+ * leaves a tombstone that searches still route through but never return, and the slot is recycled by a later
+ * insert once the index is full. Not thread-safe; searches may run concurrently with each other but not with
+ * writes.
+ */
+final class HnswIndex {
+
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::similarity).reversed();
+    private static final Comparator<Candidate> FARTHEST_FIRST = Comparator.comparingDouble(Candidate::similarity);
+
+    private final int dimensions;
+    private final int capacity;
+    private final int maxLinks;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final FloatBuffer vectors;
+    private final int[][][] links;
+    private final BitSet deleted;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private int size;
+    private int removed;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    HnswIndex(int dimensions, int capacity, int m, int efConstruction) {
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.maxLinks = m;
+        this.maxLinksLayer0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.vectors = ByteBuffer.allocateDirect(Math.multiplyExact(Math.multiplyExact(capacity, dimensions), Float.BYTES))
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+        this.links = new int[capacity][][];
+        this.deleted = new BitSet(capacity);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int removed() {
+        return removed;
+    }
+
+    /**
+     * Inserts a unit-length vector and returns its node id. Once every slot has been used, a tombstoned node is
+     * recycled in place; returns {@code -1} when the index is full of live nodes.
+     */
+    int add(float[] vector) {
+        if (size < capacity) {
+            int node = size++;
+            vectors.put(node * dimensions, vector);
+            int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            links[node] = new int[level + 1][];
+            for (int layer = 0; layer <= level; layer++) {
+                // Slot 0 holds the link count
+                links[node][layer] = new int[(layer == 0 ? maxLinksLayer0 : maxLinks) + 1];
+            }
+            if (entryPoint < 0) {
+                entryPoint = node;
+                topLevel = level;
+                return node;
+            }
+            link(node, vector, level, entryPoint);
+            if (level > topLevel) {
+                entryPoint = node;
+                topLevel = level;
+            }
+            return node;
+        }
+        // The entry point keeps its slot even when deleted, so recycling never has to re-root the graph
+        int node = deleted.nextSetBit(0);
+        if (node == entryPoint) {
+            node = deleted.nextSetBit(node + 1);
+        }
+        return node < 0 ? -1 : recycle(node, vector);
+    }
+
+    /**
+     * Reuses a tombstoned node for a new vector at the node's existing level. Its outgoing links are rebuilt from
+     * scratch; stale incoming links are left for the neighbours' next re-selection to prune, as hnswlib does.
+     */
+    private int recycle(int node, float[] vector) {
+        vectors.put(node * dimensions, vector);
+        for (int[] layerLinks : links[node]) {
+            layerLinks[0] = 0;
+        }
+        deleted.clear(node);
+        removed--;
+        link(node, vector, links[node].length - 1, entryPoint);
+        return node;
+    }
+
+    private void link(int node, float[] vector, int level, int start) {
+        int nearest = start;
+        for (int layer = topLevel; layer > level; layer--) {
+            nearest = greedy(vector, nearest, layer);
+        }
+        for (int layer = Math.min(level, topLevel); layer >= 0; layer--) {
+            List<Candidate> candidates = searchLayer(vector, nearest, efConstruction, layer);
+            // A recycled node can still be reached through stale incoming links
+            candidates.removeIf(candidate -> candidate.node() == node);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            int limit = layer == 0 ? maxLinksLayer0 : maxLinks;
+            for (Candidate neighbour : selectNeighbours(candidates, maxLinks)) {
+                connect(node, neighbour.node(), layer, limit);
+                connect(neighbour.node(), node, layer, limit);
+            }
+            nearest = candidates.get(0).node();
+        }
+    }
+
+    void remove(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            removed++;
+        }
+    }
+
+    float[] vector(int node) {
+        float[] vector = new float[dimensions];
+        vectors.get(node * dimensions, vector);
+        return vector;
+    }
+
+    /**
+     * Best live match for a unit-length query that {@code accept} admits, or {@code null} when none of the {@code ef}
+     * nearest nodes qualifies. Rejected nodes are skipped like tombstones rather than ending the search.
+     */
+    Candidate search(float[] query, int ef, IntPredicate accept) {
+        if (entryPoint < 0) {
+            return null;
+        }
+        int nearest = entryPoint;
+        for (int layer = topLevel; layer > 0; layer--) {
+            nearest = greedy(query, nearest, layer);
+        }
+        for (Candidate candidate : searchLayer(query, nearest, Math.max(ef, 1), 0)) {
+            if (!deleted.get(candidate.node()) && accept.test(candidate.node())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private int greedy(float[] query, int start, int layer) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            int[] neighbours = links[current][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = similarity(query, neighbours[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbours[i];
+                    moved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer; returns up to {@code ef} nodes ordered nearest first.
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int layer) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(FARTHEST_FIRST);
+        Candidate first = new Candidate(start, similarity(query, start));
+        visited.set(start);
+        frontier.add(first);
+        results.add(first);
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.similarity() < results.peek().similarity()) {
+                break;
+            }
+            int[] neighbours = links[current.node()][layer];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = similarity(query, neighbour);
+                if (results.size() < ef || score > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(NEAREST_FIRST);
+        return ordered;
+    }
+
+    /**
+     * The paper's neighbour heuristic: keep a candidate only if it is closer to the base than to any neighbour
+     * already kept, so links spread across clusters instead of piling into one. Leftover room is filled with the
+     * nearest rejected candidates.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        List<Candidate> rejected = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == limit) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity(candidate.node(), kept.node()) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : rejected).add(candidate);
+        }
+        for (int i = 0; i < rejected.size() && selected.size() < limit; i++) {
+            selected.add(rejected.get(i));
+        }
+        return selected;
+    }
+
+    private void connect(int from, int to, int layer, int limit) {
+        int[] neighbours = links[from][layer];
+        int count = neighbours[0];
+        for (int i = 1; i <= count; i++) {
+            if (neighbours[i] == to) {
+                return;
+            }
+        }
+        if (count < limit) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+        // Over capacity: re-select the whole neighbourhood relative to the node that owns it
+        List<Candidate> candidates = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            candidates.add(new Candidate(neighbours[i], similarity(from, neighbours[i])));
+        }
+        candidates.add(new Candidate(to, similarity(from, to)));
+        candidates.sort(NEAREST_FIRST);
+        List<Candidate> kept = selectNeighbours(candidates, limit);
+        for (int i = 0; i < kept.size(); i++) {
+            neighbours[i + 1] = kept.get(i).node();
+        }
+        neighbours[0] = kept.size();
+    }
+
+    private float similarity(float[] query, int node) {
+        int base = node * dimensions;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += query[i] * vectors.get(base + i);
+        }
+        return sum;
+    }
+
+    private float similarity(int a, int b) {
+        int baseA = a * dimensions;
+        int baseB = b * dimensions;
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += vectors.get(baseA + i) * vectors.get(baseB + i);
+        }
+        return sum;
+    }
+
+    record Candidate(int node, float similarity) {
+    }
+}
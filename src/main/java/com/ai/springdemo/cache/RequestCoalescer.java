@@ -0,0 +1,113 @@
+package com.ai.springdemo.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+@Component
+public class RequestCoalescer {
+
+    private final Map<ResponseCacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<ResponseCacheKey, Mono<Object>> inFlightReactive = new ConcurrentHashMap<>();
+    private final Map<ResponseCacheKey, Flux<String>> inFlightStreams = new ConcurrentHashMap<>();
+
+    @Value("${app.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.coalescing.follower-timeout:5m}")
+    private Duration followerTimeout;
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(ResponseCacheKey key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+
+        try {
+            T value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            // Followers are parked on this future, so it must complete whatever the leader threw
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executeReactive(ResponseCacheKey key, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return Mono.defer(loader);
+        }
+
+        // share() runs the loader once for every concurrent subscriber and cancels it only when all have left
+        return (Mono<T>) inFlightReactive.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<Object>> self = new AtomicReference<>();
+            Mono<Object> shared = Mono.defer(loader)
+                    .map(Object.class::cast)
+                    .doFinally(signal -> inFlightReactive.remove(k, self.get()))
+                    .share();
+            self.set(shared);
+            return shared;
+        });
+    }
+
+    public Flux<String> stream(ResponseCacheKey key, Supplier<Flux<String>> source) {
+        if (!enabled) {
+            return Flux.defer(source);
+        }
+
+        // replay() lets late subscribers catch up on the tokens already emitted; refCount() cancels the
+        // upstream generation only once every subscriber has gone away
+        return inFlightStreams.computeIfAbsent(key, k -> {
+            AtomicReference<Flux<String>> self = new AtomicReference<>();
+            Flux<String> shared = Flux.defer(source)
+                    .doFinally(signal -> inFlightStreams.remove(k, self.get()))
+                    .replay()
+                    .refCount();
+            self.set(shared);
+            return shared;
+        });
+    }
+
+    private Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.get(followerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                    "Timed out waiting for an identical in-flight request");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for an identical in-flight request", ex);
+        }
+    }
+}
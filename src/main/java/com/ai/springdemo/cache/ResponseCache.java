@@ -0,0 +1,252 @@
+package com.ai.springdemo.cache;
+
+import com.ai.springdemo.dto.ChatRequest;
+import com.ai.springdemo.service.BlockingCalls;
+import com.ai.springdemo.service.ChatClientRegistry;
+import com.ai.springdemo.service.ModelProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Exact-match cache for model responses, with an optional disk tier. Only calls whose effective temperature is at
+ * or below {@code app.response-cache.max-temperature} are cached; requests that send no temperature run at the
+ * provider default (0.7 unless configured), so with the stock 0.0 limit {@code /chat} and the structured endpoints
+ * are not cached at all. {@code app.response-cache.operations.<operation>.max-temperature} overrides the limit per
+ * operation. Non-string values are held as serialized JSON and decoded per hit, so callers never share a mutable
+ * instance.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final ChatClientRegistry chatClientRegistry;
+    private final Environment environment;
+    private final Cache<ResponseCacheKey, Object> memory;
+    private final Map<String, Double> operationMaxTemperatures = new ConcurrentHashMap<>();
+    private final Duration ttl;
+
+    @Value("${app.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.response-cache.max-temperature:0.0}")
+    private double maxTemperature;
+
+    @Value("${app.response-cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${app.response-cache.disk.directory:${java.io.tmpdir}/spring-ai-demo/response-cache}")
+    private Path diskDirectory;
+
+    @Value("${spring.ai.openai.chat.options.temperature:0.7}")
+    private double openAiTemperature;
+
+    @Value("${spring.ai.ollama.chat.options.temperature:0.7}")
+    private double ollamaTemperature;
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         ChatClientRegistry chatClientRegistry,
+                         Environment environment,
+                         @Value("${app.response-cache.max-entries:10000}") long maxEntries,
+                         @Value("${app.response-cache.ttl:1h}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.chatClientRegistry = chatClientRegistry;
+        this.environment = environment;
+        this.ttl = ttl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (diskEnabled) {
+            Files.createDirectories(diskDirectory);
+            purgeExpiredFiles();
+        }
+    }
+
+    public ResponseCacheKey.Builder keyBuilder(String operation, ModelProvider provider) {
+        return ResponseCacheKey.builder(operation, provider, chatClientRegistry.modelName(provider));
+    }
+
+    public ResponseCacheKey chatKey(String operation, ModelProvider provider, ChatRequest request) {
+        return ResponseCacheKey.forChat(operation, provider, chatClientRegistry.modelName(provider), request);
+    }
+
+    public boolean isCacheable(String operation, ModelProvider provider, ChatRequest.ChatOptions options) {
+        return enabled && effectiveTemperature(provider, options) <= maxTemperature(operation);
+    }
+
+    public double effectiveTemperature(ModelProvider provider, ChatRequest.ChatOptions options) {
+        Double temperature = options != null ? options.getTemperature() : null;
+        if (temperature == null) {
+            temperature = provider == ModelProvider.OPENAI ? openAiTemperature : ollamaTemperature;
+        }
+        return temperature;
+    }
+
+    private double maxTemperature(String operation) {
+        return operationMaxTemperatures.computeIfAbsent(operation, op -> environment.getProperty(
+                "app.response-cache.operations." + op + ".max-temperature", Double.class, maxTemperature));
+    }
+
+    public <T> T get(ModelProvider provider, ChatRequest.ChatOptions options, ResponseCacheKey key,
+                     TypeReference<T> type, Supplier<T> loader) {
+        if (!isCacheable(key.getOperation(), provider, options)) {
+            return loader.get();
+        }
+
+        T cached = fromMemory(key, type);
+        if (cached != null) {
+            return cached;
+        }
+
+        T value = diskEnabled ? readFromDisk(key, type) : null;
+        if (value == null) {
+            value = loader.get();
+            if (value == null) {
+                return null;
+            }
+            if (diskEnabled) {
+                writeToDisk(key, value);
+            }
+        }
+        toMemory(key, value);
+        return value;
+    }
+
+    /**
+     * Reactive counterpart of {@link #get}. Memory hits are answered inline; the disk tier is file I/O, so its
+     * reads and writes run on the bounded elastic scheduler rather than the calling event loop.
+     */
+    public <T> Mono<T> getReactive(ModelProvider provider, ChatRequest.ChatOptions options, ResponseCacheKey key,
+                                   TypeReference<T> type, Supplier<Mono<T>> loader) {
+        if (!isCacheable(key.getOperation(), provider, options)) {
+            return Mono.defer(loader);
+        }
+
+        return Mono.defer(() -> {
+            T cached = fromMemory(key, type);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            Mono<T> load = Mono.defer(loader).doOnNext(value -> {
+                toMemory(key, value);
+                if (diskEnabled) {
+                    Schedulers.boundedElastic().schedule(() -> writeToDisk(key, value));
+                }
+            });
+            if (!diskEnabled) {
+                return load;
+            }
+            return BlockingCalls.call(() -> readFromDisk(key, type))
+                    .doOnNext(value -> toMemory(key, value))
+                    .switchIfEmpty(load);
+        });
+    }
+
+    /**
+     * The form a value is held in: strings are immutable and kept as-is, anything else becomes JSON bytes.
+     */
+    Object encode(Object value) throws JsonProcessingException {
+        return value instanceof String ? value : objectMapper.writeValueAsBytes(value);
+    }
+
+    /**
+     * Turns what {@link #encode} produced back into a value, a fresh instance per call for anything but a string.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T decode(Object stored, TypeReference<T> type) throws IOException {
+        return stored instanceof byte[] json ? objectMapper.readValue(json, type) : (T) stored;
+    }
+
+    private <T> T fromMemory(ResponseCacheKey key, TypeReference<T> type) {
+        Object cached = memory.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return decode(cached, type);
+        } catch (IOException ex) {
+            logger.warn("Dropping unreadable cached response {}: {}", key, ex.getMessage());
+            memory.invalidate(key);
+            return null;
+        }
+    }
+
+    private void toMemory(ResponseCacheKey key, Object value) {
+        try {
+            memory.put(key, encode(value));
+        } catch (JsonProcessingException ex) {
+            logger.warn("Unable to cache response {}: {}", key, ex.getMessage());
+        }
+    }
+
+    private <T> T readFromDisk(ResponseCacheKey key, TypeReference<T> type) {
+        Path file = diskDirectory.resolve(key.getHash() + ".json");
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            if (isExpired(file)) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return objectMapper.readValue(file.toFile(), type);
+        } catch (IOException ex) {
+            logger.warn("Unable to read cached response {}: {}", file, ex.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(ResponseCacheKey key, Object value) {
+        Path file = diskDirectory.resolve(key.getHash() + ".json");
+        try {
+            Path tmp = Files.createTempFile(diskDirectory, key.getHash(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), value);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.warn("Unable to write cached response {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private void purgeExpiredFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDirectory, "*.{json,tmp}")) {
+            for (Path file : files) {
+                if (file.toString().endsWith(".tmp") || isExpired(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private boolean isExpired(Path file) throws IOException {
+        long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+        return age > ttl.toMillis();
+    }
+}
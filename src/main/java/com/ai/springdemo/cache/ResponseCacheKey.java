@@ -0,0 +1,123 @@
+package com.ai.springdemo.cache;
+
+import com.ai.springdemo.dto.ChatRequest;
+import com.ai.springdemo.service.ModelProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+public final class ResponseCacheKey {
+
+    private final String operation;
+    private final String hash;
+
+    private ResponseCacheKey(String operation, String hash) {
+        this.operation = operation;
+        this.hash = hash;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public static Builder builder(String operation, ModelProvider provider, String model) {
+        return new Builder(operation).add(operation).add(provider.getId()).add(model);
+    }
+
+    public static ResponseCacheKey forChat(String operation, ModelProvider provider, String model, ChatRequest request) {
+        return builder(operation, provider, model)
+                .add(request.getSystemPrompt())
+                .addHistory(request.getConversationHistory())
+                .add(request.getMessage())
+                .addOptions(request.getOptions())
+                .build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ResponseCacheKey other && hash.equals(other.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hash;
+    }
+
+    public static final class Builder {
+
+        private final String operation;
+        private final MessageDigest digest;
+
+        private Builder(String operation) {
+            this.operation = operation;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 not available", ex);
+            }
+        }
+
+        public Builder add(String value) {
+            // Length-prefix every field so ("ab", "c") and ("a", "bc") never collide; -1 marks null
+            if (value == null) {
+                updateInt(-1);
+                return this;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            updateInt(bytes.length);
+            digest.update(bytes);
+            return this;
+        }
+
+        public Builder add(Number value) {
+            return add(value != null ? value.toString() : null);
+        }
+
+        public Builder addHistory(List<ChatRequest.ConversationMessage> history) {
+            if (history == null) {
+                updateInt(-1);
+                return this;
+            }
+            updateInt(history.size());
+            for (ChatRequest.ConversationMessage msg : history) {
+                add(msg.getRole() != null ? msg.getRole().toLowerCase() : null);
+                add(msg.getContent());
+            }
+            return this;
+        }
+
+        public Builder addOptions(ChatRequest.ChatOptions options) {
+            if (options == null) {
+                updateInt(-1);
+                return this;
+            }
+            return add(options.getTemperature())
+                    .add(options.getMaxTokens())
+                    .add(options.getTopP())
+                    .add(options.getPresencePenalty());
+        }
+
+        public ResponseCacheKey build() {
+            return new ResponseCacheKey(operation, HexFormat.of().formatHex(digest.digest()));
+        }
+
+        private void updateInt(int value) {
+            digest.update((byte) (value >>> 24));
+            digest.update((byte) (value >>> 16));
+            digest.update((byte) (value >>> 8));
+            digest.update((byte) value);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.ai.springdemo.cache;
+
+import com.ai.springdemo.service.BlockingCalls;
+import com.ai.springdemo.service.ChatClientRegistry;
+import com.ai.springdemo.service.ModelProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Answers paraphrases of earlier prompts from the response they already got. Messages are embedded with the local
+ * Ollama embedding model and matched against an HNSW index per operation, provider and model; the nearest
+ * neighbour that has not expired is served when its cosine similarity clears the threshold. Entries expire after
+ * the TTL and, once a namespace is full, the least recently used one gives up its slot. Sits behind the exact-match
+ * {@link ResponseCache} but has its own temperature gate: a paraphrase match is approximate anyway, so by default it
+ * accepts calls at the providers' stock 0.7 that the exact-match cache turns away. Values are held in the
+ * exact-match cache's encoded form, so a hit decodes its own copy instead of sharing a mutable instance.
+ */
+@Component
+public class SemanticCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticCache.class);
+
+    private final ObjectProvider<OllamaEmbeddingModel> embeddingModel;
+    private final ResponseCache responseCache;
+    private final ChatClientRegistry chatClientRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Namespace> namespaces = new ConcurrentHashMap<>();
+
+    @Value("${app.semantic-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.semantic-cache.max-temperature:0.7}")
+    private double maxTemperature;
+
+    @Value("${app.semantic-cache.similarity-threshold:0.92}")
+    private double similarityThreshold;
+
+    @Value("${app.semantic-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${app.semantic-cache.ttl:1h}")
+    private Duration ttl;
+
+    @Value("${app.semantic-cache.hnsw.m:16}")
+    private int m;
+
+    @Value("${app.semantic-cache.hnsw.ef-construction:64}")
+    private int efConstruction;
+
+    @Value("${app.semantic-cache.hnsw.ef-search:64}")
+    private int efSearch;
+
+    public SemanticCache(ObjectProvider<OllamaEmbeddingModel> embeddingModel, ResponseCache responseCache,
+                         ChatClientRegistry chatClientRegistry, MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.responseCache = responseCache;
+        this.chatClientRegistry = chatClientRegistry;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("llm.semantic.cache.entries", namespaces,
+                        all -> all.values().stream().mapToInt(namespace -> namespace.live).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Serves a cached answer to a paraphrase of {@code text}, or loads and stores one. Entries only match within the
+     * same {@code context}: anything besides the text that shapes the answer, such as prompt template versions.
+     */
+    public <T> T get(String operation, ModelProvider provider, String context, String text, TypeReference<T> type,
+                     Supplier<T> loader) {
+        if (!isEnabled(provider)) {
+            return loader.get();
+        }
+        Lookup lookup = lookup(operation, provider, context, text);
+        T cached = decode(lookup, type);
+        if (cached != null) {
+            return cached;
+        }
+        T value = loader.get();
+        store(lookup, value);
+        return value;
+    }
+
+    /**
+     * Reactive counterpart of {@link #get}. Embedding is a blocking HTTP call, so the lookup runs on the bounded
+     * elastic scheduler; the loader is subscribed on whatever thread the lookup completes on. Its result is indexed
+     * on the bounded elastic scheduler as well, not on the thread that finished the model stream, since an insert
+     * waits for the namespace's write lock and links the vector into the graph.
+     */
+    public <T> Mono<T> getReactive(String operation, ModelProvider provider, String context, String text,
+                                   TypeReference<T> type, Supplier<Mono<T>> loader) {
+        if (!isEnabled(provider)) {
+            return Mono.defer(loader);
+        }
+        return BlockingCalls.call(() -> lookup(operation, provider, context, text))
+                .flatMap(lookup -> {
+                    T cached = decode(lookup, type);
+                    return cached != null
+                            ? Mono.just(cached)
+                            : Mono.defer(loader).doOnNext(value ->
+                                    Schedulers.boundedElastic().schedule(() -> store(lookup, value)));
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${app.semantic-cache.sweep-interval:5m}")
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Namespace namespace : namespaces.values()) {
+            namespace.removeExpired(now);
+        }
+        // Namespaces left behind by a template reload or model swap hold an index; let them go once empty. Removal
+        // is atomic with store's compute, so an insert either lands before the check or in a fresh namespace
+        for (String key : namespaces.keySet()) {
+            namespaces.computeIfPresent(key, (k, namespace) -> namespace.live == 0 ? null : namespace);
+        }
+    }
+
+    private boolean isEnabled(ModelProvider provider) {
+        return enabled && embeddingModel.getIfAvailable() != null
+                && responseCache.effectiveTemperature(provider, null) <= maxTemperature;
+    }
+
+    private Lookup lookup(String operation, ModelProvider provider, String context, String text) {
+        long start = System.nanoTime();
+        String key = operation + ":" + provider.getId() + ":" + chatClientRegistry.modelName(provider) + ":" + context;
+        Namespace namespace = namespaces.computeIfAbsent(key, k -> new Namespace());
+        float[] vector;
+        try {
+            vector = normalize(embeddingModel.getObject().embed(text));
+        } catch (RuntimeException ex) {
+            // The cache is an optimisation; an unreachable embedding model must not fail the request
+            logger.debug("Embedding failed for {}: {}", operation, ex.getMessage());
+            count(operation, "error");
+            return new Lookup(key, null, null);
+        }
+
+        Match match = namespace.find(vector, System.currentTimeMillis());
+        Object value = null;
+        if (match != null) {
+            DistributionSummary.builder("llm.semantic.cache.similarity")
+                    .tag("operation", operation)
+                    .serviceLevelObjectives(0.8, 0.85, 0.9, 0.92, 0.95, 0.98)
+                    .register(meterRegistry)
+                    .record(match.similarity());
+            if (match.similarity() >= similarityThreshold) {
+                namespace.touch(match);
+                value = match.entry().value;
+            }
+        }
+        Timer.builder("llm.semantic.cache.lookup")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        count(operation, value != null ? "hit" : "miss");
+        return new Lookup(key, vector, value);
+    }
+
+    private <T> T decode(Lookup lookup, TypeReference<T> type) {
+        if (lookup.value() == null) {
+            return null;
+        }
+        try {
+            return responseCache.decode(lookup.value(), type);
+        } catch (IOException ex) {
+            // Treated as a miss; the reloaded answer is stored next to it and the stale entry ages out
+            logger.warn("Unreadable semantic cache entry in {}: {}", lookup.key(), ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Indexes a loaded value under the lookup's namespace, resolved again because the sweep may have dropped the
+     * one the lookup searched while the model was generating.
+     */
+    private void store(Lookup lookup, Object value) {
+        if (lookup.vector() == null || value == null) {
+            return;
+        }
+        Object encoded;
+        try {
+            encoded = responseCache.encode(value);
+        } catch (JsonProcessingException ex) {
+            logger.warn("Unable to cache semantic answer in {}: {}", lookup.key(), ex.getMessage());
+            return;
+        }
+        namespaces.compute(lookup.key(), (key, namespace) -> {
+            Namespace target = namespace != null ? namespace : new Namespace();
+            target.put(lookup.vector(), encoded);
+            return target;
+        });
+    }
+
+    private void count(String operation, String result) {
+        meterRegistry.counter("llm.semantic.cache.requests", "operation", operation, "result", result).increment();
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float component : vector) {
+            norm += component * component;
+        }
+        if (norm == 0) {
+            throw new IllegalStateException("Embedding model returned a zero vector");
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = vector[i] * scale;
+        }
+        return unit;
+    }
+
+    private record Lookup(String key, float[] vector, Object value) {
+    }
+
+    private record Match(int node, Entry entry, float similarity) {
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long createdAt;
+
+        private Entry(Object value, long now) {
+            this.value = value;
+            this.createdAt = now;
+        }
+
+        private boolean isExpired(long now, Duration ttl) {
+            return now - createdAt > ttl.toMillis();
+        }
+    }
+
+    /**
+     * One index with its entries, keyed by node id, and a recency list over the live nodes. Searches share the read
+     * lock; inserts and evictions take the write lock. A hit moves its node to the back of the recency list while
+     * holding the read lock, so concurrent hits serialize on {@code recency} instead. The index is created on the
+     * first insert, once the embedding dimension is known.
+     */
+    private final class Namespace {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Object recency = new Object();
+        private HnswIndex index;
+        private Entry[] entries;
+        // Doubly linked through node ids, least recently used at the head; -1 ends the list
+        private int[] previous;
+        private int[] next;
+        private int head = -1;
+        private int tail = -1;
+        private volatile int live;
+
+        private Match find(float[] vector, long now) {
+            lock.readLock().lock();
+            try {
+                if (index == null || index.dimensions() != vector.length) {
+                    return null;
+                }
+                // Expired entries the sweep has not reached yet must not hide a fresh one further down the list
+                HnswIndex.Candidate candidate = index.search(vector, efSearch,
+                        node -> !entries[node].isExpired(now, ttl));
+                return candidate != null
+                        ? new Match(candidate.node(), entries[candidate.node()], candidate.similarity())
+                        : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void touch(Match match) {
+            lock.readLock().lock();
+            try {
+                // The entry may have been evicted, and its slot reused, since the search released the lock
+                if (entries[match.node()] == match.entry()) {
+                    synchronized (recency) {
+                        unlink(match.node());
+                        append(match.node());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void put(float[] vector, Object value) {
+            lock.writeLock().lock();
+            try {
+                if (index == null || index.dimensions() != vector.length) {
+                    // First insert, or the embedding model was swapped for one with another dimension
+                    index = new HnswIndex(vector.length, maxEntries, m, efConstruction);
+                    entries = new Entry[maxEntries];
+                    previous = new int[maxEntries];
+                    next = new int[maxEntries];
+                    head = -1;
+                    tail = -1;
+                    live = 0;
+                }
+                int node = index.add(vector);
+                while (node < 0 && live > 0) {
+                    evictLeastRecentlyUsed();
+                    node = index.add(vector);
+                }
+                if (node >= 0) {
+                    entries[node] = new Entry(value, System.currentTimeMillis());
+                    append(node);
+                    live++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeExpired(long now) {
+            lock.writeLock().lock();
+            try {
+                if (entries == null) {
+                    return;
+                }
+                for (int node = 0; node < entries.length; node++) {
+                    if (entries[node] != null && entries[node].isExpired(now, ttl)) {
+                        remove(node, "ttl");
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void evictLeastRecentlyUsed() {
+            if (head >= 0) {
+                remove(head, "lru");
+            }
+        }
+
+        private void remove(int node, String cause) {
+            entries[node] = null;
+            unlink(node);
+            index.remove(node);
+            live--;
+            meterRegistry.counter("llm.semantic.cache.evictions", "cause", cause).increment();
+        }
+
+        private void append(int node) {
+            previous[node] = tail;
+            next[node] = -1;
+            if (tail >= 0) {
+                next[tail] = node;
+            } else {
+                head = node;
+            }
+            tail = node;
+        }
+
+        private void unlink(int node) {
+            if (previous[node] >= 0) {
+                next[previous[node]] = next[node];
+            } else {
+                head = next[node];
+            }
+            if (next[node] >= 0) {
+                previous[next[node]] = previous[node];
+            } else {
+                tail = previous[node];
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ai.springdemo.config;
+
+import com.ai.springdemo.service.ClientId;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.security.Principal;
+
+class ClientIdArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ClientIdResolver clientIdResolver;
+
+    ClientIdArgumentResolver(ClientIdResolver clientIdResolver) {
+        this.clientIdResolver = clientIdResolver;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == ClientId.class;
+    }
+
+    @Override
+    public ClientId resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                    NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        Principal principal = webRequest.getUserPrincipal();
+        return clientIdResolver.resolve(principal != null ? principal.getName() : null,
+                webRequest.getHeader(ClientId.HEADER), request != null ? request.getRemoteAddr() : null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.ai.springdemo.config;
+
+import com.ai.springdemo.service.ClientId;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Turns what a request carries into its {@link ClientId}, shared by the servlet and reactive argument resolvers.
+ * Keys are compared in constant time so a caller cannot recover one byte by byte from response timing.
+ */
+class ClientIdResolver {
+
+    private final List<byte[]> apiKeys;
+
+    ClientIdResolver(List<String> apiKeys) {
+        this.apiKeys = apiKeys.stream()
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    ClientId resolve(String principal, String apiKey, String remoteAddress) {
+        if (principal == null && apiKey != null && isConfigured(apiKey.trim())) {
+            return ClientId.ofApiKey(apiKey.trim());
+        }
+        return ClientId.of(principal, remoteAddress);
+    }
+
+    private boolean isConfigured(String apiKey) {
+        byte[] candidate = apiKey.getBytes(StandardCharsets.UTF_8);
+        boolean match = false;
+        for (byte[] key : apiKeys) {
+            match |= MessageDigest.isEqual(key, candidate);
+        }
+        return match;
+    }
+}
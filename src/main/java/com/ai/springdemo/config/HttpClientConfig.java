@@ -0,0 +1,89 @@
+package com.ai.springdemo.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
+
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${app.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${app.http.max-connections-total:100}")
+    private int maxConnectionsTotal;
+
+    @Value("${app.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${app.http.read-timeout:5m}")
+    private Duration readTimeout;
+
+    @Value("${app.http.keep-alive:2m}")
+    private Duration keepAlive;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient() {
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)
+                        .setMaxConnTotal(maxConnectionsTotal)
+                        .setDefaultConnectionConfig(connectionConfig())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient pooledHttpAsyncClient() {
+        // NEGOTIATE upgrades to HTTP/2 over TLS via ALPN (OpenAI) and stays on HTTP/1.1 for plain http (Ollama)
+        return HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)
+                        .setMaxConnTotal(maxConnectionsTotal)
+                        .setDefaultConnectionConfig(connectionConfig())
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                                .build())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .build();
+    }
+
+    @Bean
+    public RestClientCustomizer pooledRestClientCustomizer(CloseableHttpClient pooledHttpClient) {
+        return builder -> builder.requestFactory(new HttpComponentsClientHttpRequestFactory(pooledHttpClient));
+    }
+
+    @Bean
+    public WebClientCustomizer pooledWebClientCustomizer(CloseableHttpAsyncClient pooledHttpAsyncClient) {
+        return builder -> builder.clientConnector(new HttpComponentsClientHttpConnector(pooledHttpAsyncClient));
+    }
+
+    private ConnectionConfig connectionConfig() {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.ai.springdemo.config;
+
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class HttpConnectionWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpConnectionWarmer.class);
+
+    private final CloseableHttpClient pooledHttpClient;
+    private final CloseableHttpAsyncClient pooledHttpAsyncClient;
+
+    @Value("${app.http.warmup-connections:2}")
+    private int warmupConnections;
+
+    @Value("${spring.ai.openai.base-url:https://api.openai.com}")
+    private String openAiBaseUrl;
+
+    @Value("${spring.ai.ollama.base-url:http://localhost:11434}")
+    private String ollamaBaseUrl;
+
+    @Value("${app.ollama.backends:}")
+    private List<String> ollamaBackends;
+
+    public HttpConnectionWarmer(CloseableHttpClient pooledHttpClient, CloseableHttpAsyncClient pooledHttpAsyncClient) {
+        this.pooledHttpClient = pooledHttpClient;
+        this.pooledHttpAsyncClient = pooledHttpAsyncClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmupConnections <= 0) {
+            return;
+        }
+        pooledHttpAsyncClient.start();
+        CompletableFuture.runAsync(() -> {
+            warm(openAiBaseUrl + "/v1/models");
+            for (String baseUrl : ollamaBaseUrls()) {
+                warm(baseUrl + "/api/tags");
+            }
+        });
+    }
+
+    /**
+     * Every pooled Ollama backend gets its own connections; the single base URL is kept for setups without a pool.
+     */
+    private Set<String> ollamaBaseUrls() {
+        Set<String> urls = new LinkedHashSet<>();
+        urls.add(ollamaBaseUrl);
+        for (String backend : ollamaBackends) {
+            if (!backend.isBlank()) {
+                urls.add(backend.trim());
+            }
+        }
+        return urls;
+    }
+
+    private void warm(String url) {
+        // Any response (even a 401) leaves an established, kept-alive connection in the pool
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int i = 0; i < warmupConnections; i++) {
+            requests.add(CompletableFuture.runAsync(() -> {
+                try {
+                    pooledHttpClient.execute(new HttpGet(url), response -> {
+                        EntityUtils.consume(response.getEntity());
+                        return null;
+                    });
+                    pooledHttpAsyncClient.execute(SimpleRequestBuilder.get(url).build(), null).get();
+                } catch (Exception ex) {
+                    logger.debug("Connection warm-up failed for {}: {}", url, ex.getMessage());
+                }
+            }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        logger.info("Warmed {} connection(s) to {}", warmupConnections, url);
+    }
+}
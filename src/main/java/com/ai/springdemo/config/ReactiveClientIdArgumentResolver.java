@@ -0,0 +1,39 @@
+package com.ai.springdemo.config;
+
+import com.ai.springdemo.service.ClientId;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+class ReactiveClientIdArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ClientIdResolver clientIdResolver;
+
+    ReactiveClientIdArgumentResolver(ClientIdResolver clientIdResolver) {
+        this.clientIdResolver = clientIdResolver;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == ClientId.class;
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext,
+                                        ServerWebExchange exchange) {
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        String address = remote == null ? null
+                : remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+        String apiKey = exchange.getRequest().getHeaders().getFirst(ClientId.HEADER);
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .map(name -> clientIdResolver.resolve(name, apiKey, address))
+                .defaultIfEmpty(clientIdResolver.resolve(null, apiKey, address))
+                .cast(Object.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ai.springdemo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private final ClientIdResolver clientIdResolver;
+
+    public ReactiveWebConfig(@Value("${app.clients.api-keys:}") List<String> apiKeys) {
+        this.clientIdResolver = new ClientIdResolver(apiKeys);
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOrigins("http://localhost:3000", "http://localhost")
+                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedHeaders("*")
+                .allowCredentials(true);
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactiveClientIdArgumentResolver(clientIdResolver));
+    }
+
+    /**
+     * Boot's reactive error handler renders a {@link ResponseStatusException}'s status but drops its headers, which
+     * would strip {@code Retry-After} from rate-limit rejections. Runs just ahead of it and copies them over.
+     */
+    @Bean
+    @Order(-2)
+    WebExceptionHandler responseStatusHeadersExceptionHandler() {
+        return (exchange, ex) -> {
+            if (ex instanceof ResponseStatusException statusException && !exchange.getResponse().isCommitted()) {
+                exchange.getResponse().getHeaders().addAll(statusException.getHeaders());
+            }
+            return Mono.error(ex);
+        };
+    }
+}
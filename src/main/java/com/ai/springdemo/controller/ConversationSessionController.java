@@ -0,0 +1,54 @@
+package com.ai.springdemo.controller;
+
+import com.ai.springdemo.dto.CreateSessionRequest;
+import com.ai.springdemo.dto.SessionChatRequest;
+import com.ai.springdemo.dto.SessionInfo;
+import com.ai.springdemo.service.BlockingCalls;
+import com.ai.springdemo.service.ClientId;
+import com.ai.springdemo.service.ConversationSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/openai/api/sessions")
+public class ConversationSessionController {
+
+    private final ConversationSessionService conversationSessionService;
+
+    public ConversationSessionController(ConversationSessionService conversationSessionService) {
+        this.conversationSessionService = conversationSessionService;
+    }
+
+    // Creating and deleting sessions write the session log, which is file I/O and stays off the event loop
+    @PostMapping
+    public Mono<SessionInfo> createSession(@RequestBody(required = false) CreateSessionRequest request) {
+        String systemPrompt = request != null ? request.getSystemPrompt() : null;
+        return BlockingCalls.call(() -> conversationSessionService.create(systemPrompt));
+    }
+
+    @GetMapping("/{sessionId}")
+    public SessionInfo getSession(@PathVariable String sessionId) {
+        return conversationSessionService.get(sessionId);
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteSession(@PathVariable String sessionId) {
+        return BlockingCalls.run(() -> conversationSessionService.delete(sessionId));
+    }
+
+    @PostMapping("/{sessionId}/chat")
+    public Mono<String> chat(@PathVariable String sessionId, @RequestBody SessionChatRequest request,
+                             ClientId clientId) {
+        return conversationSessionService.chatReactive(sessionId, request, clientId);
+    }
+
+    @PostMapping(value = "/{sessionId}/chat-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<String> chatStream(@PathVariable String sessionId, @RequestBody SessionChatRequest request,
+                                   ClientId clientId) {
+        return conversationSessionService.chatStream(sessionId, request, clientId);
+    }
+}
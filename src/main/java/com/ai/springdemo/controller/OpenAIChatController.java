@@ -1,14 +1,24 @@
 package com.ai.springdemo.controller;
 
+import com.ai.springdemo.dto.BatchChatResult;
 import com.ai.springdemo.dto.ChatRequest;
-import com.ai.springdemo.dto.PromptTemplate;
+import com.ai.springdemo.dto.TemplateChatRequest;
+import com.ai.springdemo.service.ChatBatchService;
+import com.ai.springdemo.service.ClientId;
 import com.ai.springdemo.service.OpenAIChatService;
 import com.ai.springdemo.service.PromptTemplateService;
+import com.ai.springdemo.service.TemplateChatService;
+import com.ai.springdemo.service.TokenRateLimiter;
+import com.ai.springdemo.stream.ResumableStreamRegistry;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/openai/api")
@@ -17,36 +27,90 @@ public class OpenAIChatController {
 
     private final OpenAIChatService openAIChatService;
     private final PromptTemplateService promptTemplateService;
+    private final ChatBatchService chatBatchService;
+    private final TemplateChatService templateChatService;
+    private final TokenRateLimiter tokenRateLimiter;
+    private final ResumableStreamRegistry resumableStreams;
 
     @Autowired
-    public OpenAIChatController(OpenAIChatService openAIChatService, PromptTemplateService promptTemplateService) {
+    public OpenAIChatController(OpenAIChatService openAIChatService, PromptTemplateService promptTemplateService,
+                                ChatBatchService chatBatchService, TemplateChatService templateChatService,
+                                TokenRateLimiter tokenRateLimiter, ResumableStreamRegistry resumableStreams) {
         this.openAIChatService = openAIChatService;
         this.promptTemplateService = promptTemplateService;
+        this.chatBatchService = chatBatchService;
+        this.templateChatService = templateChatService;
+        this.tokenRateLimiter = tokenRateLimiter;
+        this.resumableStreams = resumableStreams;
     }
 
 
     @GetMapping("/chat")
-    public String chat(@RequestParam String message, @RequestParam(defaultValue = "ollama") String model) {
-        return openAIChatService.chatWithLLM(message, model);
+    public Mono<String> chat(@RequestParam String message, @RequestParam(defaultValue = "ollama") String model,
+                             ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, message)
+                .then(openAIChatService.chatWithLLMReactive(message, model));
     }
 
     @PostMapping("/chat-with-roles")
-    public String chatWithRoles(@RequestBody ChatRequest request) {
-        return openAIChatService.chatWithRoles(request);
+    public Mono<String> chatWithRoles(@RequestBody ChatRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, request)
+                .then(openAIChatService.chatWithRolesReactive(request));
     }
 
     @PostMapping("/chat-advanced")
-    public String chatAdvanced(@RequestBody ChatRequest request) {
-        return openAIChatService.chatWithRoles(request);
+    public Mono<String> chatAdvanced(@RequestBody ChatRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, request)
+                .then(openAIChatService.chatWithRolesReactive(request));
     }
 
     @PostMapping(value = "/chat-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<String> chatStream(@RequestBody ChatRequest request) {
-        return openAIChatService.chatWithStream(request);
+    public Flux<ServerSentEvent<String>> chatStream(@RequestBody ChatRequest request, ClientId clientId,
+                                                    @RequestHeader(value = ResumableStreamRegistry.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        // A reconnect picks up the buffered generation, so it neither re-runs the model nor spends token budget
+        return resumableStreams.resume(lastEventId)
+                .orElseGet(() -> tokenRateLimiter.admitReactive(clientId, request)
+                        .thenMany(resumableStreams.start(() -> openAIChatService.chatWithStream(request))));
+    }
+
+    @PostMapping(value = "/chat-batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchChatResult> chatBatch(@RequestBody java.util.List<ChatRequest> requests, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, requests)
+                .thenMany(Flux.defer(() -> chatBatchService.chatBatch(requests)));
     }
 
     @GetMapping("/prompt-templates")
-    public java.util.List<PromptTemplate> getPromptTemplates() {
-        return promptTemplateService.getTemplates();
+    public ResponseEntity<byte[]> getPromptTemplates() {
+        // Pre-serialized body; Spring answers 304 itself when If-None-Match matches the ETag
+        return ResponseEntity.ok()
+                .eTag(promptTemplateService.getETag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(promptTemplateService.getTemplatesJson());
+    }
+
+    @PostMapping("/prompt-templates/{templateId}/chat")
+    public Mono<String> chatWithTemplate(@PathVariable String templateId, @RequestBody TemplateChatRequest request,
+                                         ClientId clientId) {
+        return admitTemplate(clientId, request)
+                .then(templateChatService.chatReactive(templateId, request));
+    }
+
+    @PostMapping(value = "/prompt-templates/{templateId}/chat-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> chatStreamWithTemplate(@PathVariable String templateId, @RequestBody TemplateChatRequest request,
+                                                                ClientId clientId,
+                                                                @RequestHeader(value = ResumableStreamRegistry.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return resumableStreams.resume(lastEventId)
+                .orElseGet(() -> {
+                    // Render up front: once the stream has started, a missing variable could only be an error frame
+                    ChatRequest chatRequest = templateChatService.prepare(templateId, request);
+                    return admitTemplate(clientId, request)
+                            .thenMany(resumableStreams.start(() -> templateChatService.chatStream(templateId, chatRequest)));
+                });
+    }
+
+    private Mono<Void> admitTemplate(ClientId clientId, TemplateChatRequest request) {
+        String variables = request.getVariables() != null ? String.join(" ", request.getVariables().values()) : null;
+        return tokenRateLimiter.admitReactive(clientId, request.getOptions(), request.getSystemPrompt(), variables);
     }
 }
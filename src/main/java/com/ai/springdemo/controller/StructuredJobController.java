@@ -0,0 +1,52 @@
+package com.ai.springdemo.controller;
+
+import com.ai.springdemo.dto.JobInfo;
+import com.ai.springdemo.dto.StructuredOutputRequest;
+import com.ai.springdemo.service.BlockingCalls;
+import com.ai.springdemo.service.ClientId;
+import com.ai.springdemo.service.StructuredJobService;
+import com.ai.springdemo.service.TokenRateLimiter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/openai/api/structured/jobs")
+public class StructuredJobController {
+
+    private final StructuredJobService structuredJobService;
+    private final TokenRateLimiter tokenRateLimiter;
+
+    public StructuredJobController(StructuredJobService structuredJobService, TokenRateLimiter tokenRateLimiter) {
+        this.structuredJobService = structuredJobService;
+        this.tokenRateLimiter = tokenRateLimiter;
+    }
+
+    @PostMapping("/{operation}")
+    public Mono<ResponseEntity<JobInfo>> submit(@PathVariable String operation, @RequestBody StructuredOutputRequest request,
+                                                ClientId clientId) {
+        // Submission appends to the job log, which is file I/O and stays off the event loop
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(BlockingCalls.call(() -> structuredJobService.submit(operation, request, clientId)))
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/openai/api/structured/jobs/" + job.jobId()))
+                        .body(job));
+    }
+
+    @GetMapping("/{jobId}")
+    public JobInfo getJob(@PathVariable String jobId, ClientId clientId) {
+        return structuredJobService.get(jobId, clientId);
+    }
+
+    @GetMapping("/{jobId}/result")
+    public Mono<ResponseEntity<String>> getResult(@PathVariable String jobId, ClientId clientId) {
+        // Stored as serialized JSON in the job log, so a fetch is one file read and never touches the model
+        return BlockingCalls.call(() -> structuredJobService.getResult(jobId, clientId))
+                .map(result -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(result));
+    }
+}
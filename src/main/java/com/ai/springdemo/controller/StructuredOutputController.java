@@ -3,8 +3,14 @@ package com.ai.springdemo.controller;
 import com.ai.springdemo.dto.StructuredOutputRequest;
 import com.ai.springdemo.dto.StructuredResponse;
 import com.ai.springdemo.dto.TripPlan;
+import com.ai.springdemo.service.ClientId;
 import com.ai.springdemo.service.StructuredOutputService;
+import com.ai.springdemo.service.TokenRateLimiter;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
@@ -14,33 +20,56 @@ import java.util.Map;
 public class StructuredOutputController {
 
     private final StructuredOutputService structuredOutputService;
+    private final TokenRateLimiter tokenRateLimiter;
 
-    public StructuredOutputController(StructuredOutputService structuredOutputService) {
+    public StructuredOutputController(StructuredOutputService structuredOutputService,
+                                      TokenRateLimiter tokenRateLimiter) {
         this.structuredOutputService = structuredOutputService;
+        this.tokenRateLimiter = tokenRateLimiter;
     }
 
     @PostMapping("/trip-plan")
-    public TripPlan getTripPlans(@RequestBody StructuredOutputRequest request) {
-        return structuredOutputService.getTripPlan(request);
+    public Mono<TripPlan> getTripPlans(@RequestBody StructuredOutputRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(structuredOutputService.getTripPlanReactive(request));
+    }
+
+    @PostMapping(value = "/trip-plan/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamTripPlan(@RequestBody StructuredOutputRequest request,
+                                                        ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .thenMany(structuredOutputService.streamTripPlan(request));
     }
 
     @PostMapping("/trip-spots")
-    public List<String> getTripSpots(@RequestBody StructuredOutputRequest request) {
-        return structuredOutputService.getTripSpots(request);
+    public Mono<List<String>> getTripSpots(@RequestBody StructuredOutputRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(structuredOutputService.getTripSpotsReactive(request));
     }
 
     @PostMapping("/trip-guide")
-    public Map<String, Object> getTripGuide(@RequestBody StructuredOutputRequest request) {
-        return structuredOutputService.getTripGuide(request);
+    public Mono<Map<String, Object>> getTripGuide(@RequestBody StructuredOutputRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(structuredOutputService.getTripGuideReactive(request));
     }
 
     @PostMapping("/complete-trip-plans")
-    public List<TripPlan> getCompleteTripPlans(@RequestBody StructuredOutputRequest request) {
-        return structuredOutputService.getCompleteTripPlans(request);
+    public Mono<List<TripPlan>> getCompleteTripPlans(@RequestBody StructuredOutputRequest request, ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(structuredOutputService.getCompleteTripPlansReactive(request));
+    }
+
+    @PostMapping(value = "/complete-trip-plans/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamCompleteTripPlans(@RequestBody StructuredOutputRequest request,
+                                                                 ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .thenMany(structuredOutputService.streamCompleteTripPlans(request));
     }
 
     @PostMapping("/answer")
-    public StructuredResponse getStructuredResponse(@RequestBody StructuredOutputRequest request) {
-        return structuredOutputService.getStructuredResponse(request);
+    public Mono<StructuredResponse> getStructuredResponse(@RequestBody StructuredOutputRequest request,
+                                                          ClientId clientId) {
+        return tokenRateLimiter.admitReactive(clientId, null, request.getMessage())
+                .then(structuredOutputService.getStructuredResponseReactive(request));
     }
 }
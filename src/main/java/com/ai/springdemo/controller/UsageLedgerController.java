@@ -0,0 +1,43 @@
+package com.ai.springdemo.controller;
+
+import com.ai.springdemo.dto.UsageRollup;
+import com.ai.springdemo.ledger.UsageLedger;
+import com.ai.springdemo.service.BlockingCalls;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/openai/api/usage")
+public class UsageLedgerController {
+
+    private final UsageLedger usageLedger;
+
+    public UsageLedgerController(UsageLedger usageLedger) {
+        this.usageLedger = usageLedger;
+    }
+
+    @GetMapping("/rollup")
+    public Mono<List<UsageRollup>> rollup(@RequestParam(required = false) Instant from,
+                                          @RequestParam(required = false) Instant to,
+                                          @RequestParam(defaultValue = "minute") String granularity,
+                                          @RequestParam(required = false) String provider,
+                                          @RequestParam(required = false) String model,
+                                          @RequestParam(required = false) String endpoint) {
+        ChronoUnit unit = switch (granularity.toLowerCase()) {
+            case "minute" -> ChronoUnit.MINUTES;
+            case "hour" -> ChronoUnit.HOURS;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported granularity: " + granularity + " (use minute or hour)");
+        };
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(1, ChronoUnit.HOURS);
+        // Scanning segments reads from disk, so it runs on the bounded elastic scheduler
+        return BlockingCalls.call(() -> usageLedger.rollup(start, end, unit, provider, model, endpoint));
+    }
+}
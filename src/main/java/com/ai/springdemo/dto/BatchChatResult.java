@@ -0,0 +1,7 @@
+package com.ai.springdemo.dto;
+
+public record BatchChatResult(int index,
+                              String model,
+                              String content,
+                              String error) {
+}
@@ -0,0 +1,13 @@
+package com.ai.springdemo.dto;
+
+public class CreateSessionRequest {
+    private String systemPrompt;
+
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public void setSystemPrompt(String systemPrompt) {
+        this.systemPrompt = systemPrompt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ai.springdemo.dto;
+
+public record JobInfo(String jobId,
+                      String operation,
+                      String status,
+                      long submittedAt,
+                      Long completedAt,
+                      String error) {
+}
@@ -0,0 +1,6 @@
+package com.ai.springdemo.dto;
+
+public record PartialPlan(int trip,
+                          int index,
+                          Plan plan) {
+}
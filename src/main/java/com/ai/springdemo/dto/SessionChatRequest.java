@@ -0,0 +1,31 @@
+package com.ai.springdemo.dto;
+
+public class SessionChatRequest {
+    private String message;
+    private String model;
+    private ChatRequest.ChatOptions options;
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public ChatRequest.ChatOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(ChatRequest.ChatOptions options) {
+        this.options = options;
+    }
+}
@@ -0,0 +1,6 @@
+package com.ai.springdemo.dto;
+
+public record SessionInfo(String sessionId,
+                          String systemPrompt,
+                          int messageCount) {
+}
@@ -0,0 +1,42 @@
+package com.ai.springdemo.dto;
+
+import java.util.Map;
+
+public class TemplateChatRequest {
+    private Map<String, String> variables;
+    private String model;
+    private String systemPrompt;
+    private ChatRequest.ChatOptions options;
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, String> variables) {
+        this.variables = variables;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public void setSystemPrompt(String systemPrompt) {
+        this.systemPrompt = systemPrompt;
+    }
+
+    public ChatRequest.ChatOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(ChatRequest.ChatOptions options) {
+        this.options = options;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ai.springdemo.dto;
+
+public record UsageRollup(long bucketStart,
+                          String provider,
+                          String model,
+                          String endpoint,
+                          long requests,
+                          long errors,
+                          long cancelled,
+                          long inputTokens,
+                          long cachedTokens,
+                          long outputTokens,
+                          double avgLatencyMs) {
+}
@@ -0,0 +1,146 @@
+package com.ai.springdemo.job;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Append-only job log. Each record is {@code [int length][byte type][long idHigh][long idLow][long timestamp]
+ * [utf-8 payload]} written with a single positional write; a torn record at the tail is truncated on replay.
+ * Records are addressed by the offset {@link #append} returns, so callers can keep large payloads on disk and
+ * {@link #read} them back on demand.
+ */
+class JobLog implements Closeable {
+
+    static final byte SUBMIT = 1;
+    static final byte COMPLETE = 2;
+    static final byte FAIL = 3;
+
+    private static final int HEADER_BYTES = 1 + 8 + 8 + 8;
+
+    interface RecordHandler {
+        void onRecord(byte type, String jobId, long timestamp, String payload, long offset);
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private long position;
+
+    JobLog(Path file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        position = channel.size();
+    }
+
+    synchronized void replay(RecordHandler handler) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        channel.read(buffer, 0);
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            long offset = buffer.position();
+            int length = buffer.getInt(buffer.position());
+            if (length < HEADER_BYTES || length > buffer.remaining() - 4) {
+                break;
+            }
+            buffer.position(buffer.position() + 4);
+            byte type = buffer.get();
+            String jobId = new UUID(buffer.getLong(), buffer.getLong()).toString();
+            long timestamp = buffer.getLong();
+            byte[] payload = new byte[length - HEADER_BYTES];
+            buffer.get(payload);
+            handler.onRecord(type, jobId, timestamp, new String(payload, StandardCharsets.UTF_8), offset);
+        }
+        // Drop whatever a crash left half-written so new records start on a clean boundary
+        position = buffer.position();
+        if (position < size) {
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Appends a record and returns the offset it starts at.
+     */
+    synchronized long append(byte type, String jobId, long timestamp, String payload) throws IOException {
+        byte[] bytes = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        UUID uuid = UUID.fromString(jobId);
+        ByteBuffer record = ByteBuffer.allocate(4 + HEADER_BYTES + bytes.length)
+                .putInt(HEADER_BYTES + bytes.length)
+                .put(type)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .putLong(timestamp)
+                .put(bytes)
+                .flip();
+        long offset = position;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        return offset;
+    }
+
+    /**
+     * Reads back the payload of the record that starts at {@code offset}.
+     */
+    synchronized String read(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4 + HEADER_BYTES);
+        readFully(header, offset);
+        int length = header.getInt(0);
+        if (length < HEADER_BYTES || offset + 4 + length > position) {
+            throw new IOException("No job log record at offset " + offset + " in " + file);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length - HEADER_BYTES);
+        readFully(payload, offset + 4 + HEADER_BYTES);
+        return new String(payload.array(), StandardCharsets.UTF_8);
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of job log " + file + " at offset " + offset);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log so it contains only the records emitted by {@code writer}, then swaps it in atomically. The
+     * writer may still {@link #read} this log while it runs; offsets returned by the target's {@link #append} are
+     * the records' offsets in the rewritten log.
+     */
+    synchronized void rewrite(LogWriter writer) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (JobLog target = new JobLog(compacted)) {
+            writer.writeTo(target);
+            target.channel.force(false);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    interface LogWriter {
+        void writeTo(JobLog log) throws IOException;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ai.springdemo.job;
+
+import com.ai.springdemo.dto.StructuredOutputRequest;
+
+public class StructuredJob {
+
+    public enum Status {
+        PENDING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final String owner;
+    private final String operation;
+    private final StructuredOutputRequest request;
+    private final long submittedAt;
+    private volatile Status status = Status.PENDING;
+    private volatile long completedAt;
+    private volatile long resultOffset = -1;
+    private volatile String error;
+
+    StructuredJob(String id, String owner, String operation, StructuredOutputRequest request, long submittedAt) {
+        this.id = id;
+        this.owner = owner;
+        this.operation = operation;
+        this.request = request;
+        this.submittedAt = submittedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The client that submitted the job; only that client may read it back.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public StructuredOutputRequest getRequest() {
+        return request;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Offset of the result record in the job log, set once the job has {@link Status#SUCCEEDED}. The result itself
+     * stays on disk; see {@link StructuredJobStore#result}.
+     */
+    long getResultOffset() {
+        return resultOffset;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void succeed(long resultOffset, long timestamp) {
+        this.resultOffset = resultOffset;
+        this.completedAt = timestamp;
+        this.status = Status.SUCCEEDED;
+    }
+
+    void fail(String error, long timestamp) {
+        this.error = error;
+        this.completedAt = timestamp;
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,199 @@
+package com.ai.springdemo.job;
+
+import com.ai.springdemo.dto.StructuredOutputRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Structured jobs, indexed in memory and persisted to a {@link JobLog}. Only job metadata lives on the heap; a
+ * finished job's result stays in the log and is read back by offset when it is fetched. Every change that moves a
+ * result offset holds the log's monitor, which is also what {@link JobLog#rewrite} holds while compacting, so a
+ * reader never resolves an offset against the wrong file.
+ */
+@Component
+public class StructuredJobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(StructuredJobStore.class);
+
+    private final Map<String, StructuredJob> jobs = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.jobs.log-file:${java.io.tmpdir}/spring-ai-demo/jobs.log}")
+    private Path logFile;
+
+    @Value("${app.jobs.ttl:24h}")
+    private Duration ttl;
+
+    private JobLog log;
+
+    public StructuredJobStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        log = new JobLog(logFile);
+        log.replay(this::apply);
+        // Start every run from a compact log that only holds unexpired jobs
+        evictExpired();
+        rewrite();
+        logger.info("Restored {} structured job(s) from {}", jobs.size(), logFile);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        log.close();
+    }
+
+    public StructuredJob submit(String owner, String operation, StructuredOutputRequest request) {
+        long now = System.currentTimeMillis();
+        StructuredJob job = new StructuredJob(UUID.randomUUID().toString(), owner, operation, request, now);
+        // Update memory before the log so a concurrent compaction can never drop the record
+        jobs.put(job.getId(), job);
+        write(JobLog.SUBMIT, job.getId(), now, submitPayload(job));
+        return job;
+    }
+
+    public Optional<StructuredJob> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Jobs that were accepted but never finished, e.g. because the previous run stopped while they were queued.
+     */
+    public List<StructuredJob> pending() {
+        return jobs.values().stream()
+                .filter(job -> job.getStatus() == StructuredJob.Status.PENDING)
+                .toList();
+    }
+
+    /**
+     * Reads a succeeded job's serialized JSON result back from the log.
+     */
+    public String result(StructuredJob job) {
+        synchronized (log) {
+            try {
+                return log.read(job.getResultOffset());
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read result of job " + job.getId() + " from " + logFile, ex);
+            }
+        }
+    }
+
+    public void complete(StructuredJob job, String result) {
+        long now = System.currentTimeMillis();
+        synchronized (log) {
+            job.succeed(write(JobLog.COMPLETE, job.getId(), now, result), now);
+        }
+    }
+
+    public void fail(StructuredJob job, String error) {
+        long now = System.currentTimeMillis();
+        synchronized (log) {
+            job.fail(error, now);
+            write(JobLog.FAIL, job.getId(), now, error);
+        }
+    }
+
+    /**
+     * Drops finished jobs older than the TTL and rewrites the log without them.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.compaction-interval:15m}", initialDelayString = "${app.jobs.compaction-interval:15m}")
+    public void compact() throws IOException {
+        if (evictExpired()) {
+            rewrite();
+        }
+    }
+
+    private boolean evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        return jobs.values().removeIf(job -> job.getStatus() != StructuredJob.Status.PENDING
+                && job.getCompletedAt() < cutoff);
+    }
+
+    private void rewrite() throws IOException {
+        Map<StructuredJob, Long> moved = new HashMap<>();
+        synchronized (log) {
+            log.rewrite(target -> {
+                for (StructuredJob job : jobs.values()) {
+                    target.append(JobLog.SUBMIT, job.getId(), job.getSubmittedAt(), submitPayload(job));
+                    switch (job.getStatus()) {
+                        case SUCCEEDED -> moved.put(job, target.append(JobLog.COMPLETE, job.getId(),
+                                job.getCompletedAt(), log.read(job.getResultOffset())));
+                        case FAILED -> target.append(JobLog.FAIL, job.getId(), job.getCompletedAt(), job.getError());
+                        default -> { }
+                    }
+                }
+            });
+            moved.forEach((job, offset) -> job.succeed(offset, job.getCompletedAt()));
+        }
+    }
+
+    private void apply(byte type, String jobId, long timestamp, String payload, long offset) {
+        switch (type) {
+            case JobLog.SUBMIT -> {
+                try {
+                    SubmitRecord record = objectMapper.readValue(payload, SubmitRecord.class);
+                    StructuredOutputRequest request = new StructuredOutputRequest();
+                    request.setMessage(record.message());
+                    request.setModel(record.model());
+                    jobs.put(jobId, new StructuredJob(jobId, record.owner(), record.operation(), request, timestamp));
+                } catch (JsonProcessingException ex) {
+                    logger.warn("Skipping unreadable job submission {}", jobId, ex);
+                }
+            }
+            case JobLog.COMPLETE -> {
+                StructuredJob job = jobs.get(jobId);
+                if (job != null) {
+                    job.succeed(offset, timestamp);
+                }
+            }
+            case JobLog.FAIL -> {
+                StructuredJob job = jobs.get(jobId);
+                if (job != null) {
+                    job.fail(payload, timestamp);
+                }
+            }
+            default -> logger.warn("Skipping unknown job log record type {}", type);
+        }
+    }
+
+    private String submitPayload(StructuredJob job) {
+        StructuredOutputRequest request = job.getRequest();
+        try {
+            return objectMapper.writeValueAsString(new SubmitRecord(job.getOwner(), job.getOperation(),
+                    request != null ? request.getMessage() : null, request != null ? request.getModel() : null));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize job " + job.getId(), ex);
+        }
+    }
+
+    private long write(byte type, String jobId, long timestamp, String payload) {
+        try {
+            return log.append(type, jobId, timestamp, payload);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write job log " + logFile, ex);
+        }
+    }
+
+    private record SubmitRecord(String owner, String operation, String message, String model) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.ai.springdemo.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One fixed-size, memory-mapped ledger segment. Records are {@value #RECORD_BYTES} bytes:
+ * {@code [long timestamp][short provider][short model][short endpoint][byte status][byte unused]
+ * [int inputTokens][int cachedTokens][int outputTokens][int latencyMicros]}; a zero timestamp marks the first
+ * free slot.
+ */
+class LedgerSegment implements Closeable {
+
+    static final int RECORD_BYTES = 32;
+
+    interface RecordHandler {
+        void onRecord(long timestamp, int provider, int model, int endpoint, byte status,
+                      int inputTokens, int cachedTokens, int outputTokens, int latencyMicros);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private LedgerSegment(Path file, int capacity) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_BYTES);
+        // Resume after the last complete record when reopening the newest segment
+        while (buffer.remaining() >= RECORD_BYTES && buffer.getLong(buffer.position()) != 0) {
+            buffer.position(buffer.position() + RECORD_BYTES);
+        }
+    }
+
+    static LedgerSegment open(Path file, int capacity) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        return new LedgerSegment(file, capacity);
+    }
+
+    boolean isFull() {
+        return buffer.remaining() < RECORD_BYTES;
+    }
+
+    void append(long timestamp, int provider, int model, int endpoint, byte status,
+                int inputTokens, int cachedTokens, int outputTokens, int latencyMicros) {
+        int start = buffer.position();
+        buffer.position(start + 8);
+        buffer.putShort((short) provider)
+                .putShort((short) model)
+                .putShort((short) endpoint)
+                .put(status)
+                .put((byte) 0)
+                .putInt(inputTokens)
+                .putInt(cachedTokens)
+                .putInt(outputTokens)
+                .putInt(latencyMicros);
+        // The timestamp doubles as the "slot used" marker, so it is written last
+        buffer.putLong(start, timestamp);
+    }
+
+    /**
+     * Scans a segment through its own read-only mapping, so queries never touch the writer's buffer.
+     */
+    static void scan(Path file, RecordHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + RECORD_BYTES <= buffer.limit(); offset += RECORD_BYTES) {
+                long timestamp = buffer.getLong(offset);
+                if (timestamp == 0) {
+                    break;
+                }
+                handler.onRecord(timestamp,
+                        Short.toUnsignedInt(buffer.getShort(offset + 8)),
+                        Short.toUnsignedInt(buffer.getShort(offset + 10)),
+                        Short.toUnsignedInt(buffer.getShort(offset + 12)),
+                        buffer.get(offset + 14),
+                        buffer.getInt(offset + 16),
+                        buffer.getInt(offset + 20),
+                        buffer.getInt(offset + 24),
+                        buffer.getInt(offset + 28));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,348 @@
+package com.ai.springdemo.ledger;
+
+import com.ai.springdemo.dto.UsageRollup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Per-call usage ledger. Callers hand records to a single writer thread through a lock-free queue whose bound is
+ * kept by a counter, so recording never takes a lock or waits; the writer parks only when the queue is empty and
+ * callers unpark it only then. The writer owns the current memory-mapped segment, interns provider/model/endpoint
+ * names into a small dictionary file and rolls to a new segment when the current one is full. Segments past the
+ * retention period are deleted on a schedule, so retention applies even when traffic is too low to ever fill a
+ * segment.
+ */
+@Component
+public class UsageLedger {
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+    public static final byte STATUS_CANCELLED = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(UsageLedger.class);
+
+    private static final String SEGMENT_PREFIX = "usage-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String UNKNOWN = "unknown";
+    private static final int MAX_NAMES = 0xFFFF;
+    private static final Entry STOP = new Entry(0, null, null, null, STATUS_OK, 0, 0, 0, 0);
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new CopyOnWriteArrayList<>();
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter dropped;
+
+    @Value("${app.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ledger.directory:${java.io.tmpdir}/spring-ai-demo/ledger}")
+    private Path directory;
+
+    @Value("${app.ledger.segment-records:1048576}")
+    private int segmentRecords;
+
+    @Value("${app.ledger.max-queue:65536}")
+    private int maxQueue;
+
+    @Value("${app.ledger.retention:30d}")
+    private Duration retention;
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writer;
+    private LedgerSegment segment;
+    private long segmentStart;
+
+    public UsageLedger(MeterRegistry meterRegistry) {
+        this.dropped = Counter.builder("llm.ledger.dropped").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        names.add(UNKNOWN);
+        Path dictionary = dictionaryFile();
+        if (Files.exists(dictionary)) {
+            for (String name : Files.readAllLines(dictionary, StandardCharsets.UTF_8)) {
+                ids.put(name, names.size());
+                names.add(name);
+            }
+        }
+        List<Path> segments = segments();
+        Path current = segments.isEmpty() ? newSegmentFile() : segments.get(segments.size() - 1);
+        segmentStart = segmentStart(current);
+        segment = LedgerSegment.open(current, segmentRecords);
+
+        running = true;
+        writer = new Thread(this::drain, "usage-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            // Queued behind everything already accepted, so the writer flushes those before it stops
+            queue.offer(STOP);
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public void record(String provider, String model, String endpoint, byte status,
+                       int inputTokens, int cachedTokens, int outputTokens, long latencyNanos) {
+        if (!running) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), provider, model, endpoint, status,
+                inputTokens, cachedTokens, outputTokens,
+                (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.offer(entry);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Deletes segments whose records are all older than the retention period. Runs on a schedule rather than on
+     * rollover, because at low traffic a segment may never fill.
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.retention-check-interval:1h}")
+    public void deleteExpiredSegments() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        List<Path> segments = segments();
+        // A segment is expired once the segment after it started before the cutoff; the newest is never deleted
+        for (int i = 0; i + 1 < segments.size() && segmentStart(segments.get(i + 1)) < cutoff; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Aggregates every record in {@code [from, to)} into per-minute or per-hour buckets, optionally filtered by
+     * provider, model or endpoint, by scanning only the segments that overlap the range.
+     */
+    public List<UsageRollup> rollup(Instant from, Instant to, ChronoUnit granularity,
+                                    String provider, String model, String endpoint) throws IOException {
+        if (!enabled) {
+            return List.of();
+        }
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        long bucketMillis = granularity.getDuration().toMillis();
+        Map<BucketKey, Accumulator> buckets = new HashMap<>();
+
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            long segmentStart = segmentStart(segments.get(i));
+            long segmentEnd = i + 1 < segments.size() ? segmentStart(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (segmentStart >= toMillis || segmentEnd < fromMillis) {
+                continue;
+            }
+            try {
+                LedgerSegment.scan(segments.get(i), (timestamp, providerId, modelId, endpointId, status,
+                                                     inputTokens, cachedTokens, outputTokens, latencyMicros) -> {
+                    if (timestamp < fromMillis || timestamp >= toMillis || !matches(provider, providerId)
+                            || !matches(model, modelId) || !matches(endpoint, endpointId)) {
+                        return;
+                    }
+                    BucketKey key = new BucketKey(timestamp - Math.floorMod(timestamp, bucketMillis),
+                            providerId, modelId, endpointId);
+                    buckets.computeIfAbsent(key, k -> new Accumulator())
+                            .add(status, inputTokens, cachedTokens, outputTokens, latencyMicros);
+                });
+            } catch (NoSuchFileException ex) {
+                // Expired and deleted after it was listed; its records are past retention anyway
+            }
+        }
+
+        List<UsageRollup> rollups = new ArrayList<>(buckets.size());
+        buckets.forEach((key, acc) -> rollups.add(new UsageRollup(key.bucketStart(), name(key.provider()),
+                name(key.model()), name(key.endpoint()), acc.requests, acc.errors, acc.cancelled,
+                acc.inputTokens, acc.cachedTokens, acc.outputTokens,
+                acc.requests > 0 ? acc.latencyMicros / 1000.0 / acc.requests : 0)));
+        rollups.sort(Comparator.comparingLong(UsageRollup::bucketStart)
+                .thenComparing(UsageRollup::provider)
+                .thenComparing(UsageRollup::model)
+                .thenComparing(UsageRollup::endpoint));
+        return rollups;
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                // Announce the park before the last look, so a record offered in between is either seen here or
+                // finds the flag set and unparks us
+                writerParked = true;
+                entry = queue.poll();
+                if (entry == null) {
+                    LockSupport.park(this);
+                    writerParked = false;
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    continue;
+                }
+                writerParked = false;
+            }
+            if (entry == STOP) {
+                break;
+            }
+            queued.decrementAndGet();
+            try {
+                write(entry);
+            } catch (IOException | RuntimeException ex) {
+                dropped.increment();
+                logger.warn("Unable to write usage ledger record", ex);
+            }
+        }
+        try {
+            segment.close();
+        } catch (IOException ex) {
+            logger.warn("Unable to close usage ledger segment", ex);
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        if (segment.isFull()) {
+            segment.close();
+            // Segment names must stay unique and ordered even when two fill up within the same millisecond
+            segmentStart = Math.max(System.currentTimeMillis(), segmentStart + 1);
+            segment = LedgerSegment.open(segmentFile(segmentStart), segmentRecords);
+        }
+        segment.append(entry.timestamp, intern(entry.provider), intern(entry.model), intern(entry.endpoint),
+                entry.status, entry.inputTokens, entry.cachedTokens, entry.outputTokens, entry.latencyMicros);
+    }
+
+    // Only ever called from the writer thread, so the dictionary file has a single appender
+    private int intern(String name) throws IOException {
+        if (name == null || name.isBlank()) {
+            return 0;
+        }
+        // Keyed by the name as the dictionary stores it, so the same id comes back after a restart
+        String line = name.replace('\n', ' ').replace('\r', ' ');
+        Integer id = ids.get(line);
+        if (id != null) {
+            return id;
+        }
+        if (names.size() >= MAX_NAMES) {
+            return 0;
+        }
+        Files.writeString(dictionaryFile(), line + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        int newId = names.size();
+        names.add(line);
+        ids.put(line, newId);
+        return newId;
+    }
+
+    private boolean matches(String filter, int id) {
+        return filter == null || filter.isBlank() || filter.equals(name(id));
+    }
+
+    private String name(int id) {
+        return id < names.size() ? names.get(id) : UNKNOWN;
+    }
+
+    private Path dictionaryFile() {
+        return directory.resolve("dictionary.txt");
+    }
+
+    private Path newSegmentFile() {
+        return segmentFile(System.currentTimeMillis());
+    }
+
+    private Path segmentFile(long start) {
+        return directory.resolve(String.format("%s%013d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record Entry(long timestamp, String provider, String model, String endpoint, byte status,
+                         int inputTokens, int cachedTokens, int outputTokens, int latencyMicros) {
+    }
+
+    private record BucketKey(long bucketStart, int provider, int model, int endpoint) {
+    }
+
+    private static final class Accumulator {
+
+        private long requests;
+        private long errors;
+        private long cancelled;
+        private long inputTokens;
+        private long cachedTokens;
+        private long outputTokens;
+        private long latencyMicros;
+
+        private void add(byte status, int input, int cached, int output, int latency) {
+            requests++;
+            if (status == STATUS_ERROR) {
+                errors++;
+            } else if (status == STATUS_CANCELLED) {
+                cancelled++;
+            }
+            inputTokens += input;
+            cachedTokens += cached;
+            outputTokens += output;
+            latencyMicros += latency;
+        }
+    }
+}
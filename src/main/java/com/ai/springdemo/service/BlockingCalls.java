@@ -0,0 +1,28 @@
+package com.ai.springdemo.service;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs blocking work such as file I/O on the bounded elastic scheduler.
+ * <p>
+ * {@code Mono.fromCallable(..).subscribeOn(..)} fuses into an operator whose subscribing thread cancels the task
+ * with an interrupt if downstream has already cancelled, which Mono operators do once they have their value. The
+ * task is still running the downstream chain at that point, so on Tomcat the response write fails with "the
+ * current thread was interrupted". Hiding the source keeps the plain subscribeOn, which cancels in place.
+ */
+public final class BlockingCalls {
+
+    private BlockingCalls() {
+    }
+
+    public static <T> Mono<T> call(Callable<T> callable) {
+        return Mono.fromCallable(callable).hide().subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public static Mono<Void> run(Runnable runnable) {
+        return Mono.<Void>fromRunnable(runnable).hide().subscribeOn(Schedulers.boundedElastic());
+    }
+}
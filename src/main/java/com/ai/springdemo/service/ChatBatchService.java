@@ -0,0 +1,77 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.BatchChatResult;
+import com.ai.springdemo.dto.ChatRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Service
+public class ChatBatchService {
+
+    private final OpenAIChatService openAIChatService;
+
+    @Value("${app.batch.max-size:1000}")
+    private int maxSize;
+
+    @Value("${app.batch.openai.parallelism:8}")
+    private int openAiParallelism;
+
+    @Value("${app.batch.ollama.parallelism:2}")
+    private int ollamaParallelism;
+
+    public ChatBatchService(OpenAIChatService openAIChatService) {
+        this.openAIChatService = openAIChatService;
+    }
+
+    public Flux<BatchChatResult> chatBatch(List<ChatRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return Flux.empty();
+        }
+        if (requests.size() > maxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + requests.size() + " exceeds the limit of " + maxSize);
+        }
+
+        // Fan out each provider's share with its own parallelism and merge results in completion order
+        List<Flux<BatchChatResult>> lanes = new ArrayList<>();
+        // A null element is one bad entry, not a bad batch: report it at its index and run the rest
+        List<BatchChatResult> invalid = IntStream.range(0, requests.size())
+                .filter(i -> requests.get(i) == null)
+                .mapToObj(i -> new BatchChatResult(i, null, null, "Request must not be null"))
+                .toList();
+        if (!invalid.isEmpty()) {
+            lanes.add(Flux.fromIterable(invalid));
+        }
+        for (ModelProvider provider : ModelProvider.values()) {
+            List<Integer> indexes = IntStream.range(0, requests.size())
+                    .filter(i -> requests.get(i) != null)
+                    .filter(i -> ModelProvider.from(requests.get(i).getModel(), ModelProvider.OLLAMA) == provider)
+                    .boxed()
+                    .toList();
+            if (!indexes.isEmpty()) {
+                lanes.add(Flux.fromIterable(indexes)
+                        .flatMap(i -> execute(i, requests.get(i)), parallelism(provider)));
+            }
+        }
+        return Flux.merge(lanes);
+    }
+
+    private Mono<BatchChatResult> execute(int index, ChatRequest request) {
+        return Mono.defer(() -> openAIChatService.chatWithRolesReactive(request, "chat-batch", RequestPriority.BATCH))
+                .map(reply -> new BatchChatResult(index, request.getModel(), reply, null))
+                .onErrorResume(ex -> Mono.just(new BatchChatResult(index, request.getModel(), null,
+                        ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName())));
+    }
+
+    private int parallelism(ModelProvider provider) {
+        return Math.max(1, provider == ModelProvider.OPENAI ? openAiParallelism : ollamaParallelism);
+    }
+}
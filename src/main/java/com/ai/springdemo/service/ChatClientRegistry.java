@@ -0,0 +1,54 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.advisor.AuditTokenUsageAdvisor;
+import com.ai.springdemo.advisor.BulkheadAdvisor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+public class ChatClientRegistry {
+
+    private final Map<ModelProvider, ChatClient> clients = new EnumMap<>(ModelProvider.class);
+    private final Map<ModelProvider, String> modelNames = new EnumMap<>(ModelProvider.class);
+
+    public ChatClientRegistry(OpenAiChatModel openAiChatModel,
+                              OllamaBackendPool ollamaBackendPool,
+                              AuditTokenUsageAdvisor auditTokenUsageAdvisor,
+                              ProviderBulkhead providerBulkhead,
+                              @Value("${spring.ai.openai.chat.options.model:${spring.ai.openai.chat.model:}}") String openAiModel,
+                              @Value("${spring.ai.ollama.chat.options.model:${spring.ai.ollama.chat.model:}}") String ollamaModel) {
+        modelNames.put(ModelProvider.OPENAI, openAiModel);
+        modelNames.put(ModelProvider.OLLAMA, ollamaModel);
+        register(ModelProvider.OPENAI, openAiChatModel, auditTokenUsageAdvisor, providerBulkhead);
+        register(ModelProvider.OLLAMA, ollamaBackendPool.getChatModel(), auditTokenUsageAdvisor, providerBulkhead);
+    }
+
+    private void register(ModelProvider provider, ChatModel chatModel,
+                          AuditTokenUsageAdvisor auditTokenUsageAdvisor, ProviderBulkhead providerBulkhead) {
+        ChatClient.Builder builder = ChatClient.builder(chatModel)
+                .defaultAdvisors(spec -> spec
+                        .advisors(new BulkheadAdvisor(providerBulkhead, provider), auditTokenUsageAdvisor)
+                        .param(AuditTokenUsageAdvisor.PROVIDER, provider.getId())
+                        .param(AuditTokenUsageAdvisor.MODEL, modelNames.get(provider)));
+        if (provider == ModelProvider.OPENAI) {
+            // Non-blocking calls are served by streaming, which only reports usage when asked to
+            builder.defaultOptions(OpenAiChatOptions.builder().streamUsage(true).build());
+        }
+        clients.put(provider, builder.build());
+    }
+
+    public ChatClient get(ModelProvider provider) {
+        return clients.get(provider);
+    }
+
+    public String modelName(ModelProvider provider) {
+        return modelNames.get(provider);
+    }
+}
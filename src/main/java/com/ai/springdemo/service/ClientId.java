@@ -0,0 +1,49 @@
+package com.ai.springdemo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The caller a request is budgeted and scoped to: the authenticated principal when there is one, then an
+ * {@code X-Api-Key} that matches one of the configured {@code app.clients.api-keys}, otherwise the remote address.
+ * Unrecognised keys are ignored, so a caller cannot mint a fresh bucket per request by inventing keys. The kinds are
+ * prefixed so one can never impersonate another, and a key is identified by a fingerprint so it never shows up in
+ * logs or metrics. Controllers declare a parameter of this type and the web config resolves it; behind a proxy, set
+ * {@code server.forward-headers-strategy} so the address is the real client's.
+ */
+public record ClientId(String value) {
+
+    public static final String HEADER = "X-Api-Key";
+
+    public static final ClientId UNKNOWN = new ClientId("addr:unknown");
+
+    public static ClientId of(String principal, String remoteAddress) {
+        if (principal != null && !principal.isBlank()) {
+            return new ClientId("user:" + principal.trim());
+        }
+        return remoteAddress != null ? new ClientId("addr:" + remoteAddress) : UNKNOWN;
+    }
+
+    /**
+     * Identifies a caller by an API key that has already been checked against the configured keys.
+     */
+    public static ClientId ofApiKey(String apiKey) {
+        return new ClientId("key:" + fingerprint(apiKey));
+    }
+
+    private static String fingerprint(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
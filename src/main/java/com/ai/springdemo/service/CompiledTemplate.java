@@ -0,0 +1,105 @@
+package com.ai.springdemo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@code .st} template split once into literal and {@code {variable}} segments so rendering is a single pass
+ * over a {@link StringBuilder}. Unknown variables render as empty text, matching StringTemplate.
+ */
+public final class CompiledTemplate {
+
+    private final String source;
+    private final String version;
+    private final String[] literals;
+    private final String[] variables;
+    private final Set<String> variableNames;
+    private final int literalLength;
+
+    private CompiledTemplate(String source, List<String> literals, List<String> variables) {
+        this.source = source;
+        this.version = version(source);
+        this.literals = literals.toArray(new String[0]);
+        this.variables = variables.toArray(new String[0]);
+        this.variableNames = Set.copyOf(new LinkedHashSet<>(variables));
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < source.length()) {
+            int end = source.charAt(i) == '{' ? variableEnd(source, i + 1) : -1;
+            if (end < 0) {
+                i++;
+                continue;
+            }
+            literals.add(source.substring(literalStart, i));
+            variables.add(source.substring(i + 1, end));
+            i = end + 1;
+            literalStart = i;
+        }
+        literals.add(source.substring(literalStart));
+        return new CompiledTemplate(source, literals, variables);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Short digest of the source; changes whenever a hot reload changes the template text.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public Set<String> getVariableNames() {
+        return variableNames;
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(literalLength + 32 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(variables[i]);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        return out.append(literals[variables.length]).toString();
+    }
+
+    private static String version(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static int variableEnd(String source, int start) {
+        int i = start;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '}') {
+                return i > start ? i : -1;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') {
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import com.ai.springdemo.dto.SessionChatRequest;
+import com.ai.springdemo.dto.SessionInfo;
+import com.ai.springdemo.session.ConversationSession;
+import com.ai.springdemo.session.ConversationSessionStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ConversationSessionService {
+
+    private final ConversationSessionStore sessionStore;
+    private final OpenAIChatService openAIChatService;
+    private final TokenRateLimiter tokenRateLimiter;
+
+    public ConversationSessionService(ConversationSessionStore sessionStore, OpenAIChatService openAIChatService,
+                                      TokenRateLimiter tokenRateLimiter) {
+        this.sessionStore = sessionStore;
+        this.openAIChatService = openAIChatService;
+        this.tokenRateLimiter = tokenRateLimiter;
+    }
+
+    public SessionInfo create(String systemPrompt) {
+        return toInfo(sessionStore.create(systemPrompt));
+    }
+
+    public SessionInfo get(String sessionId) {
+        return toInfo(findSession(sessionId));
+    }
+
+    public void delete(String sessionId) {
+        if (!sessionStore.delete(sessionId)) {
+            throw sessionNotFound(sessionId);
+        }
+    }
+
+    /**
+     * Admission is charged here rather than in the controller because the prompt includes the stored history.
+     */
+    public Mono<String> chatReactive(String sessionId, SessionChatRequest request, ClientId clientId) {
+        return Mono.defer(() -> {
+            ConversationSession session = findSession(sessionId);
+            ChatRequest chatRequest = toChatRequest(session, request);
+            return tokenRateLimiter.admitReactive(clientId, chatRequest)
+                    .then(Mono.defer(() -> openAIChatService.chatWithRolesReactive(chatRequest)))
+                    .flatMap(reply -> appendTurn(session, request.getMessage(), reply).thenReturn(reply));
+        });
+    }
+
+    public Flux<String> chatStream(String sessionId, SessionChatRequest request, ClientId clientId) {
+        ConversationSession session = findSession(sessionId);
+        ChatRequest chatRequest = toChatRequest(session, request);
+        StringBuilder reply = new StringBuilder();
+        return tokenRateLimiter.admitReactive(clientId, chatRequest)
+                .thenMany(Flux.defer(() -> openAIChatService.chatWithStream(chatRequest)))
+                .doOnNext(reply::append)
+                .concatWith(Mono.defer(() -> appendTurn(session, request.getMessage(), reply.toString()))
+                        .then(Mono.empty()));
+    }
+
+    /**
+     * Appending writes the memory-mapped session log and may remap it, so it runs on the bounded elastic scheduler
+     * rather than on the thread that delivered the model's last chunk, which in reactive mode is an event loop.
+     */
+    private Mono<Void> appendTurn(ConversationSession session, String userMessage, String reply) {
+        return BlockingCalls.run(() -> sessionStore.appendTurn(session, userMessage, reply));
+    }
+
+    private ChatRequest toChatRequest(ConversationSession session, SessionChatRequest request) {
+        ChatRequest chatRequest = new ChatRequest();
+        chatRequest.setMessage(request.getMessage());
+        chatRequest.setModel(request.getModel());
+        chatRequest.setOptions(request.getOptions());
+        chatRequest.setSystemPrompt(session.getSystemPrompt());
+        chatRequest.setConversationHistory(session.history());
+        return chatRequest;
+    }
+
+    private ConversationSession findSession(String sessionId) {
+        return sessionStore.get(sessionId).orElseThrow(() -> sessionNotFound(sessionId));
+    }
+
+    private ResponseStatusException sessionNotFound(String sessionId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown session: " + sessionId);
+    }
+
+    private SessionInfo toInfo(ConversationSession session) {
+        return new SessionInfo(session.getId(), session.getSystemPrompt(), session.size());
+    }
+}
@@ -0,0 +1,163 @@
+package com.ai.springdemo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+@Component
+public class HedgingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingExecutor.class);
+
+    private static final int SAMPLE_SIZE = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final MeterRegistry meterRegistry;
+    private final OllamaBackendPool ollamaBackendPool;
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleCount;
+    private volatile long hedgeDelayNanos;
+    private boolean active;
+
+    @Value("${app.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.hedging.primary:ollama}")
+    private String primary;
+
+    @Value("${app.hedging.secondary:ollama}")
+    private String secondary;
+
+    @Value("${app.hedging.percentile:0.95}")
+    private double percentile;
+
+    @Value("${app.hedging.min-delay:500ms}")
+    private Duration minDelay;
+
+    @Value("${app.hedging.initial-delay:3s}")
+    private Duration initialDelay;
+
+    @Value("${app.hedging.deadline:30s}")
+    private Duration deadline;
+
+    public HedgingExecutor(MeterRegistry meterRegistry, OllamaBackendPool ollamaBackendPool) {
+        this.meterRegistry = meterRegistry;
+        this.ollamaBackendPool = ollamaBackendPool;
+    }
+
+    @PostConstruct
+    void validate() {
+        active = enabled;
+        if (enabled && primaryProvider() == ModelProvider.OLLAMA && secondaryProvider() == ModelProvider.OLLAMA
+                && ollamaBackendPool.getBackendCount() < 2) {
+            // The hedge would queue behind the slow request on the same host and only double its load
+            logger.warn("Hedging disabled: primary and secondary both resolve to the single Ollama backend; "
+                    + "configure app.ollama.backends with two or more hosts or use another secondary");
+            active = false;
+        }
+    }
+
+    public boolean appliesTo(ModelProvider provider) {
+        return active && provider == primaryProvider();
+    }
+
+    /**
+     * Runs {@code call} against the primary provider and, if it has not produced a first chunk within the
+     * observed latency percentile, against the secondary too. Whichever emits first wins and the other is
+     * cancelled. The primary is abandoned outright once the hard deadline passes without a first chunk. Both calls
+     * share a {@link RoutingOllamaChatModel#ROUTED_BACKENDS} set, so with a pool of Ollama hosts the hedge is routed
+     * away from the one the primary is waiting on.
+     * <p>
+     * Every call feeds the delay estimate with the primary's time to first chunk. When the primary loses or times
+     * out, the time it had been waiting is recorded instead: a lower bound, but leaving those calls out would fit
+     * the percentile to the fast requests only and keep shrinking the delay.
+     */
+    public Flux<String> execute(Function<ModelProvider, Flux<String>> call, int promptTokens) {
+        ModelProvider secondaryProvider = secondaryProvider();
+        Duration delay = currentDelay();
+        AtomicReference<String> winner = new AtomicReference<>();
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean sampled = new AtomicBoolean();
+            Flux<String> primaryCall = call.apply(primaryProvider())
+                    .timeout(Mono.delay(deadline), chunk -> Mono.never())
+                    .doOnNext(chunk -> {
+                        winner.compareAndSet(null, "primary");
+                        if (sampled.compareAndSet(false, true)) {
+                            recordSample(System.nanoTime() - start);
+                        }
+                    })
+                    .doOnError(TimeoutException.class, ex -> {
+                        if (sampled.compareAndSet(false, true)) {
+                            recordSample(System.nanoTime() - start);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (sampled.compareAndSet(false, true)) {
+                            recordSample(System.nanoTime() - start);
+                        }
+                    });
+            Flux<String> hedgeCall = Mono.delay(delay)
+                    .doOnNext(tick -> {
+                        hedged.set(true);
+                        meterRegistry.counter("llm.hedge.fired", "secondary", secondaryProvider.getId()).increment();
+                    })
+                    .thenMany(Flux.defer(() -> call.apply(secondaryProvider)))
+                    .doOnNext(chunk -> winner.compareAndSet(null, "secondary"));
+            Set<String> routedBackends = ConcurrentHashMap.newKeySet();
+            return Flux.firstWithValue(primaryCall, hedgeCall)
+                    .contextWrite(Context.of(RoutingOllamaChatModel.ROUTED_BACKENDS, routedBackends));
+        }).doFinally(signal -> {
+            if (!hedged.get()) {
+                return;
+            }
+            // The losing call evaluated the whole prompt before it was cancelled
+            String won = winner.get() != null ? winner.get() : "none";
+            meterRegistry.counter("llm.hedge.won", "winner", won).increment();
+            meterRegistry.summary("llm.hedge.tokens.wasted").record(promptTokens);
+            logger.info("Hedged request after {} ms: winner={}, ~{} prompt tokens wasted", delay.toMillis(), won,
+                    promptTokens);
+        });
+    }
+
+    private ModelProvider primaryProvider() {
+        return ModelProvider.from(primary, ModelProvider.OLLAMA);
+    }
+
+    private ModelProvider secondaryProvider() {
+        return ModelProvider.from(secondary, ModelProvider.OPENAI);
+    }
+
+    private Duration currentDelay() {
+        long delay = hedgeDelayNanos > 0 ? hedgeDelayNanos : initialDelay.toNanos();
+        return Duration.ofNanos(Math.min(Math.max(delay, minDelay.toNanos()), deadline.toNanos()));
+    }
+
+    private synchronized void recordSample(long nanos) {
+        samples[sampleCount % SAMPLE_SIZE] = nanos;
+        sampleCount++;
+        if (sampleCount >= MIN_SAMPLES && sampleCount % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(samples, Math.min(sampleCount, SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            hedgeDelayNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class HistoryCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryCompactor.class);
+
+    // Role markers and separators the chat templates add around every message
+    private static final int PER_MESSAGE_OVERHEAD = 4;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.history.openai.context-tokens:16385}")
+    private int openAiContextTokens;
+
+    @Value("${app.history.ollama.context-tokens:${spring.ai.ollama.chat.options.num-ctx:2048}}")
+    private int ollamaContextTokens;
+
+    @Value("${app.history.default-reserve:512}")
+    private int defaultReserve;
+
+    @Value("${app.history.safety-margin:64}")
+    private int safetyMargin;
+
+    @Value("${app.history.trim-block:8}")
+    private int trimBlock;
+
+    public HistoryCompactor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ChatRequest compact(ModelProvider provider, ChatRequest request) {
+        List<ChatRequest.ConversationMessage> history = request.getConversationHistory();
+        if (!enabled || history == null || history.isEmpty()) {
+            return request;
+        }
+
+        int remaining = budget(provider, request) - count(request.getSystemPrompt()) - count(request.getMessage());
+        // Walk back from the newest turn and keep as much recent context as fits
+        int keepFrom = history.size();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            int tokens = count(history.get(i).getContent());
+            if (tokens > remaining) {
+                break;
+            }
+            remaining -= tokens;
+            keepFrom = i;
+        }
+        if (keepFrom == 0) {
+            return request;
+        }
+        // Trim in whole blocks so the retained prefix stays byte-identical for several turns and the
+        // provider's prompt/KV cache keeps hitting instead of shifting by one message every turn
+        if (trimBlock > 1) {
+            keepFrom = Math.min(history.size(), ((keepFrom + trimBlock - 1) / trimBlock) * trimBlock);
+        }
+
+        int trimmedTokens = 0;
+        for (int i = 0; i < keepFrom; i++) {
+            trimmedTokens += count(history.get(i).getContent());
+        }
+        meterRegistry.counter("llm.history.tokens.trimmed", "provider", provider.getId()).increment(trimmedTokens);
+        meterRegistry.counter("llm.history.messages.trimmed", "provider", provider.getId()).increment(keepFrom);
+        logger.debug("Trimmed {} oldest message(s), {} tokens, to fit the {} context", keepFrom, trimmedTokens,
+                provider.getId());
+
+        ChatRequest compacted = new ChatRequest();
+        compacted.setMessage(request.getMessage());
+        compacted.setModel(request.getModel());
+        compacted.setSystemPrompt(request.getSystemPrompt());
+        compacted.setOptions(request.getOptions());
+        compacted.setConversationHistory(history.subList(keepFrom, history.size()));
+        return compacted;
+    }
+
+    public int estimateTokens(ChatRequest request) {
+        int tokens = count(request.getSystemPrompt()) + count(request.getMessage());
+        if (request.getConversationHistory() != null) {
+            for (ChatRequest.ConversationMessage msg : request.getConversationHistory()) {
+                tokens += count(msg.getContent());
+            }
+        }
+        return tokens;
+    }
+
+    public int estimateTokens(String text) {
+        return count(text);
+    }
+
+    private int budget(ModelProvider provider, ChatRequest request) {
+        int contextTokens = provider == ModelProvider.OPENAI ? openAiContextTokens : ollamaContextTokens;
+        ChatRequest.ChatOptions options = request.getOptions();
+        int reserve = options != null && options.getMaxTokens() != null ? options.getMaxTokens() : defaultReserve;
+        return contextTokens - reserve - safetyMargin;
+    }
+
+    private int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return PER_MESSAGE_OVERHEAD;
+        }
+        return tokenCountEstimator.estimate(text) + PER_MESSAGE_OVERHEAD;
+    }
+}
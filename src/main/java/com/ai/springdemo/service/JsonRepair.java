@@ -0,0 +1,108 @@
+package com.ai.springdemo.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Best-effort local fix-ups for the ways small models typically break JSON: markdown fences, chatter around the
+ * document, trailing commas and output that was cut off before the closing brackets.
+ */
+final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    static String extract(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            return text.trim();
+        }
+        int end = Math.max(text.lastIndexOf('}'), text.lastIndexOf(']'));
+        return end > start ? text.substring(start, end + 1) : text.substring(start);
+    }
+
+    static String repair(String json) {
+        StringBuilder out = new StringBuilder(json.length() + 8);
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                out.append(c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    out.append(c);
+                }
+                case '{' -> {
+                    closers.push('}');
+                    out.append(c);
+                }
+                case '[' -> {
+                    closers.push(']');
+                    out.append(c);
+                }
+                case '}', ']' -> {
+                    stripTrailingComma(out);
+                    if (!closers.isEmpty() && closers.peek() == c) {
+                        closers.pop();
+                        out.append(c);
+                    }
+                }
+                default -> out.append(c);
+            }
+        }
+
+        if (inString) {
+            if (escaped) {
+                out.setLength(out.length() - 1);
+            }
+            out.append('"');
+        }
+        int last = lastNonWhitespace(out);
+        if (last >= 0 && out.charAt(last) == ':') {
+            out.append("null");
+        }
+        stripTrailingComma(out);
+        while (!closers.isEmpty()) {
+            out.append(closers.pop());
+        }
+        return out.toString();
+    }
+
+    private static void stripTrailingComma(StringBuilder out) {
+        int last = lastNonWhitespace(out);
+        if (last >= 0 && out.charAt(last) == ',') {
+            out.setLength(last);
+        }
+    }
+
+    private static int lastNonWhitespace(StringBuilder out) {
+        int i = out.length() - 1;
+        while (i >= 0 && Character.isWhitespace(out.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ai.springdemo.service;
+
+public enum ModelProvider {
+    OPENAI("openai"),
+    OLLAMA("ollama");
+
+    private final String id;
+
+    ModelProvider(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static ModelProvider from(String model, ModelProvider fallback) {
+        if (model != null) {
+            for (ModelProvider provider : values()) {
+                if (provider.id.equalsIgnoreCase(model)) {
+                    return provider;
+                }
+            }
+        }
+        return fallback;
+    }
+}
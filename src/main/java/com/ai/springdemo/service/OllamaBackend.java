@@ -0,0 +1,86 @@
+package com.ai.springdemo.service;
+
+import org.springframework.ai.ollama.OllamaChatModel;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class OllamaBackend {
+
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final String baseUrl;
+    private final OllamaChatModel chatModel;
+    private final int failureThreshold;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean healthy = true;
+    private volatile double ewmaLatencyMillis = 1;
+    private volatile Set<String> loadedModels = Set.of();
+
+    OllamaBackend(String baseUrl, OllamaChatModel chatModel, int failureThreshold) {
+        this.baseUrl = baseUrl;
+        this.chatModel = chatModel;
+        this.failureThreshold = failureThreshold;
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    OllamaChatModel getChatModel() {
+        return chatModel;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+
+    boolean isHealthy() {
+        return healthy;
+    }
+
+    boolean hasLoaded(String model) {
+        return model != null && loadedModels.contains(model);
+    }
+
+    double score() {
+        return ewmaLatencyMillis * (outstanding.get() + 1);
+    }
+
+    long begin() {
+        outstanding.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    void recordLatency(long start) {
+        double millis = (System.nanoTime() - start) / 1e6;
+        ewmaLatencyMillis = EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewmaLatencyMillis;
+        consecutiveFailures.set(0);
+    }
+
+    void failed() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            healthy = false;
+        }
+    }
+
+    void healthCheckPassed(Set<String> loadedModels) {
+        this.loadedModels = loadedModels;
+        this.consecutiveFailures.set(0);
+        this.healthy = true;
+    }
+
+    void healthCheckFailed() {
+        this.loadedModels = Set.of();
+        this.healthy = false;
+    }
+}
@@ -0,0 +1,163 @@
+package com.ai.springdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class OllamaBackendPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaBackendPool.class);
+
+    private final ChatModel chatModel;
+    private final List<OllamaBackend> backends = new ArrayList<>();
+    private final WebClient healthClient;
+    private Disposable healthChecks;
+
+    @Value("${app.ollama.health-check-interval:10s}")
+    private Duration healthCheckInterval;
+
+    @Value("${app.ollama.health-check-timeout:2s}")
+    private Duration healthCheckTimeout;
+
+    public OllamaBackendPool(OllamaChatModel ollamaChatModel,
+                             ObjectProvider<RestClient.Builder> restClientBuilderProvider,
+                             ObjectProvider<WebClient.Builder> webClientBuilderProvider,
+                             ObjectProvider<ObservationRegistry> observationRegistryProvider,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.ollama.backends:}") List<String> baseUrls,
+                             @Value("${app.ollama.failure-threshold:3}") int failureThreshold,
+                             @Value("${app.ollama.loaded-model-discount:0.5}") double loadedModelDiscount) {
+        this.healthClient = webClientBuilderProvider.getIfAvailable(WebClient::builder).build();
+        List<String> urls = baseUrls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (urls.size() < 2) {
+            // A single host needs no routing; keep the auto-configured model
+            this.chatModel = ollamaChatModel;
+            return;
+        }
+
+        OllamaChatOptions defaultOptions = (OllamaChatOptions) ollamaChatModel.getDefaultOptions();
+        for (String url : urls) {
+            OllamaApi ollamaApi = OllamaApi.builder()
+                    .baseUrl(url)
+                    .restClientBuilder(restClientBuilderProvider.getIfAvailable(RestClient::builder))
+                    .webClientBuilder(webClientBuilderProvider.getIfAvailable(WebClient::builder))
+                    .build();
+            OllamaChatModel backendModel = OllamaChatModel.builder()
+                    .ollamaApi(ollamaApi)
+                    .defaultOptions(defaultOptions)
+                    .observationRegistry(observationRegistryProvider.getIfUnique(() -> ObservationRegistry.NOOP))
+                    .build();
+            OllamaBackend backend = new OllamaBackend(url, backendModel, failureThreshold);
+            backends.add(backend);
+            Gauge.builder("llm.ollama.backend.outstanding", backend, OllamaBackend::getOutstanding)
+                    .tag("backend", url)
+                    .register(meterRegistry);
+            Gauge.builder("llm.ollama.backend.latency.ewma", backend, OllamaBackend::getEwmaLatencyMillis)
+                    .tag("backend", url)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("llm.ollama.backend.healthy", backend, b -> b.isHealthy() ? 1 : 0)
+                    .tag("backend", url)
+                    .register(meterRegistry);
+        }
+        this.chatModel = new RoutingOllamaChatModel(List.copyOf(backends), defaultOptions, loadedModelDiscount);
+        logger.info("Routing Ollama traffic across {} backends", backends.size());
+    }
+
+    public ChatModel getChatModel() {
+        return chatModel;
+    }
+
+    /**
+     * Number of hosts traffic is balanced across; zero when a single auto-configured host is used.
+     */
+    public int getBackendCount() {
+        return backends.size();
+    }
+
+    /**
+     * Probes run on their own timer and hit every backend at once, each bounded by {@code health-check-timeout}, so
+     * a hung node delays a round by one timeout instead of holding up the other probes or the shared task scheduler.
+     */
+    @PostConstruct
+    void startHealthChecks() {
+        if (backends.isEmpty()) {
+            return;
+        }
+        healthChecks = Flux.interval(healthCheckInterval, healthCheckInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> checkHealth())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopHealthChecks() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+    }
+
+    Mono<Void> checkHealth() {
+        return Flux.fromIterable(backends)
+                .flatMap(this::probe)
+                .then();
+    }
+
+    private Mono<Void> probe(OllamaBackend backend) {
+        // /api/ps lists the models currently loaded in memory, which doubles as a liveness probe
+        return healthClient.get()
+                .uri(backend.getBaseUrl() + "/api/ps")
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(healthCheckTimeout)
+                .map(OllamaBackendPool::loadedModels)
+                .defaultIfEmpty(Set.of())
+                .doOnNext(loaded -> {
+                    if (!backend.isHealthy()) {
+                        logger.info("Ollama backend {} is healthy again", backend.getBaseUrl());
+                    }
+                    backend.healthCheckPassed(loaded);
+                })
+                .onErrorResume(ex -> {
+                    if (backend.isHealthy()) {
+                        logger.warn("Ejecting Ollama backend {}: {}", backend.getBaseUrl(), ex.getMessage());
+                    }
+                    backend.healthCheckFailed();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static Set<String> loadedModels(JsonNode running) {
+        Set<String> loaded = new HashSet<>();
+        for (JsonNode model : running.path("models")) {
+            loaded.add(model.path("name").asText());
+            loaded.add(model.path("model").asText());
+        }
+        return loaded;
+    }
+}
@@ -1,96 +1,141 @@
 package com.ai.springdemo.service;
 
 import com.ai.springdemo.advisor.AuditTokenUsageAdvisor;
+import com.ai.springdemo.advisor.BulkheadAdvisor;
+import com.ai.springdemo.cache.RequestCoalescer;
+import com.ai.springdemo.cache.ResponseCache;
+import com.ai.springdemo.cache.ResponseCacheKey;
+import com.ai.springdemo.cache.SemanticCache;
 import com.ai.springdemo.dto.ChatRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.ai.ollama.api.OllamaChatOptions;
-import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class OpenAIChatService {
 
-    private final OpenAiChatModel openAiChatModel;
-    private final OllamaChatModel ollamaChatModel;
+    private static final TypeReference<String> STRING_TYPE = new TypeReference<>() {};
+
+    private final ChatClientRegistry chatClientRegistry;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final SemanticCache semanticCache;
+    private final HistoryCompactor historyCompactor;
+    private final HedgingExecutor hedgingExecutor;
+
+    @Value("${app.prompt.ollama-native-messages:true}")
+    private boolean ollamaNativeMessages;
+
+    public OpenAIChatService(ChatClientRegistry chatClientRegistry, ResponseCache responseCache,
+                             RequestCoalescer requestCoalescer, SemanticCache semanticCache,
+                             HistoryCompactor historyCompactor, HedgingExecutor hedgingExecutor) {
+        this.chatClientRegistry = chatClientRegistry;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.semanticCache = semanticCache;
+        this.historyCompactor = historyCompactor;
+        this.hedgingExecutor = hedgingExecutor;
+    }
 
-    public OpenAIChatService(OpenAiChatModel openAiChatModel, OllamaChatModel ollamaChatModel) {
-        this.openAiChatModel = openAiChatModel;
-        this.ollamaChatModel = ollamaChatModel;
+    /**
+     * The reply is streamed from the model and joined, so no thread waits on the provider while the generation runs.
+     */
+    public Mono<String> chatWithLLMReactive(String message, String model) {
+        ModelProvider provider = ModelProvider.from(model, ModelProvider.OLLAMA);
+        ResponseCacheKey key = responseCache.keyBuilder("chat", provider).add(message).build();
+        return responseCache.getReactive(provider, null, key, STRING_TYPE,
+                () -> semanticCache.getReactive("chat", provider, null, message, STRING_TYPE,
+                        () -> requestCoalescer.executeReactive(key, () -> chatClientRegistry.get(provider)
+                                .prompt()
+                                .advisors(advisor -> advisor.param(AuditTokenUsageAdvisor.ENDPOINT, "chat")
+                                        .param(BulkheadAdvisor.PRIORITY, RequestPriority.INTERACTIVE))
+                                .user(message)
+                                .stream()
+                                .content()
+                                .collect(Collectors.joining()))));
     }
 
-    public String chatWithLLM(String message, String model) {
-        if ("openai".equalsIgnoreCase(model)) {
-            return ChatClient.create(openAiChatModel)
-                    .prompt()
-                    .advisors(List.of(new AuditTokenUsageAdvisor()))
-                    .user(message)
-                    .call()
-                    .content();
-        } else {
-            // Default to Ollama
-            return ChatClient.create(ollamaChatModel)
-                    .prompt()
-                    .advisors(List.of(new AuditTokenUsageAdvisor()))
-                    .user(message)
-                    .call()
-                    .content();
-        }
+    public Mono<String> chatWithRolesReactive(ChatRequest request) {
+        return chatWithRolesReactive(request, "chat-with-roles");
     }
 
-    public String chatWithRoles(ChatRequest request) {
-        if ("openai".equalsIgnoreCase(request.getModel())) {
-            Prompt prompt = buildOpenAiPrompt(request);
-            return ChatClient.create(openAiChatModel)
-                    .prompt(prompt)
-                    .options(buildOpenAiOptions(request))
-                    .advisors(List.of(new AuditTokenUsageAdvisor()))
-                    .call()
-                    .content();
-        }
+    public Mono<String> chatWithRolesReactive(ChatRequest request, String endpoint) {
+        return chatWithRolesReactive(request, endpoint, RequestPriority.INTERACTIVE);
+    }
 
-        String ollamaPrompt = buildOllamaPrompt(request);
-        return ChatClient.create(ollamaChatModel)
-                .prompt()
-                .options(buildOllamaOptions(request))
-                .advisors(List.of(new AuditTokenUsageAdvisor()))
-                .user(ollamaPrompt)
-                .call()
-                .content();
+    public Mono<String> chatWithRolesReactive(ChatRequest request, String endpoint, RequestPriority priority) {
+        ModelProvider provider = ModelProvider.from(request.getModel(), ModelProvider.OLLAMA);
+        ResponseCacheKey key = responseCache.chatKey("chat-with-roles", provider, request);
+        return responseCache.getReactive(provider, request.getOptions(), key, STRING_TYPE,
+                () -> requestCoalescer.executeReactive(key,
+                        () -> streamWithRoles(provider, request, endpoint, priority).collect(Collectors.joining())));
     }
 
     public Flux<String> chatWithStream(ChatRequest request) {
-        if ("openai".equalsIgnoreCase(request.getModel())) {
-            Prompt prompt = buildOpenAiPrompt(request);
-            return ChatClient.create(openAiChatModel)
-                    .prompt(prompt)
-                    .options(buildOpenAiOptions(request))
-                    .advisors(List.of(new AuditTokenUsageAdvisor()))
-                    .stream()
-                    .content();
-        }
+        return chatWithStream(request, "chat-stream");
+    }
+
+    public Flux<String> chatWithStream(ChatRequest request, String endpoint) {
+        ModelProvider provider = ModelProvider.from(request.getModel(), ModelProvider.OLLAMA);
+        ResponseCacheKey key = responseCache.chatKey("chat-stream", provider, request);
+        return requestCoalescer.stream(key,
+                () -> streamWithRoles(provider, request, endpoint, RequestPriority.INTERACTIVE_STREAM));
+    }
 
-        String ollamaPrompt = buildOllamaPrompt(request);
-        return ChatClient.create(ollamaChatModel)
-                .prompt()
-                .options(buildOllamaOptions(request))
-                .advisors(List.of(new AuditTokenUsageAdvisor()))
-                .user(ollamaPrompt)
+    private Flux<String> streamWithRoles(ModelProvider provider, ChatRequest request, String endpoint,
+                                         RequestPriority priority) {
+        if (hedgingExecutor.appliesTo(provider)) {
+            return hedged(request, endpoint, priority);
+        }
+        return promptSpec(provider, request, endpoint, priority)
                 .stream()
                 .content();
     }
 
-    private Prompt buildOpenAiPrompt(ChatRequest request) {
+    private Flux<String> hedged(ChatRequest request, String endpoint, RequestPriority priority) {
+        return hedgingExecutor.execute(target -> promptSpec(target, request, endpoint, priority)
+                .stream()
+                .content(), historyCompactor.estimateTokens(request));
+    }
+
+    private ChatClient.ChatClientRequestSpec promptSpec(ModelProvider provider, ChatRequest originalRequest,
+                                                        String endpoint, RequestPriority priority) {
+        ChatRequest request = historyCompactor.compact(provider, originalRequest);
+        ChatClient chatClient = chatClientRegistry.get(provider);
+        ChatClient.ChatClientRequestSpec spec;
+        if (provider == ModelProvider.OPENAI) {
+            spec = chatClient.prompt(buildRolePrompt(request))
+                    .options(buildOpenAiOptions(request));
+        } else if (ollamaNativeMessages) {
+            // Role-separated messages keep the rendered prefix identical across turns so Ollama reuses its KV cache
+            spec = chatClient.prompt(buildRolePrompt(request))
+                    .options(buildOllamaOptions(request));
+        } else {
+            spec = chatClient.prompt()
+                    .options(buildOllamaOptions(request))
+                    .user(buildOllamaPrompt(request));
+        }
+        return spec.advisors(advisor -> advisor.param(AuditTokenUsageAdvisor.ENDPOINT, endpoint)
+                .param(BulkheadAdvisor.PRIORITY, priority));
+    }
+
+    // System prompt first, then prior turns verbatim, then the new message: the stable prefix is what
+    // provider-side prompt caching keys on
+    Prompt buildRolePrompt(ChatRequest request) {
         List<Message> messages = new ArrayList<>();
 
         if (request.getSystemPrompt() != null && !request.getSystemPrompt().isEmpty()) {
@@ -120,7 +165,7 @@ public class OpenAIChatService {
         return new Prompt(messages);
     }
 
-    private String buildOllamaPrompt(ChatRequest request) {
+    String buildOllamaPrompt(ChatRequest request) {
         StringBuilder contextBuilder = new StringBuilder();
         contextBuilder.append("You are a helpful assistant. Follow the SYSTEM INSTRUCTIONS strictly.\n\n");
 
@@ -153,9 +198,10 @@ public class OpenAIChatService {
         return contextBuilder.toString();
     }
 
-    private OpenAiChatOptions buildOpenAiOptions(ChatRequest request) {
+    OpenAiChatOptions buildOpenAiOptions(ChatRequest request) {
         ChatRequest.ChatOptions options = request.getOptions();
-        OpenAiChatOptions.Builder builder = OpenAiChatOptions.builder();
+        // Ask OpenAI to append a usage chunk to streamed responses so they can be audited too
+        OpenAiChatOptions.Builder builder = OpenAiChatOptions.builder().streamUsage(true);
         if (options != null) {
             if (options.getTemperature() != null) {
                 builder.temperature(options.getTemperature());
@@ -173,7 +219,7 @@ public class OpenAIChatService {
         return builder.build();
     }
 
-    private OllamaChatOptions buildOllamaOptions(ChatRequest request) {
+    OllamaChatOptions buildOllamaOptions(ChatRequest request) {
         ChatRequest.ChatOptions options = request.getOptions();
         OllamaChatOptions ollamaOptions = new OllamaChatOptions();
         if (options != null) {
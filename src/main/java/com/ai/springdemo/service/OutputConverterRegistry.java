@@ -0,0 +1,70 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.Plan;
+import com.ai.springdemo.dto.StructuredResponse;
+import com.ai.springdemo.dto.TripPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.converter.MapOutputConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OutputConverterRegistry {
+
+    // Schema generation and format rendering happen once here instead of on every structured call
+    private final RepairingJsonOutputConverter<TripPlan> tripPlan;
+    private final RepairingJsonOutputConverter<List<TripPlan>> tripPlans;
+    private final RepairingJsonOutputConverter<StructuredResponse> structuredResponse;
+    private final RepairingJsonOutputConverter<List<String>> list;
+    private final RepairingJsonOutputConverter<Map<String, Object>> map;
+    private final ObjectReader planReader;
+
+    public OutputConverterRegistry(ObjectMapper objectMapper) {
+        this.tripPlan = new RepairingJsonOutputConverter<>(
+                new BeanOutputConverter<>(TripPlan.class).getFormat(),
+                objectMapper.readerFor(TripPlan.class));
+        this.tripPlans = new RepairingJsonOutputConverter<>(
+                new BeanOutputConverter<>(new ParameterizedTypeReference<List<TripPlan>>() {}).getFormat(),
+                objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, TripPlan.class)));
+        this.structuredResponse = new RepairingJsonOutputConverter<>(
+                new BeanOutputConverter<>(StructuredResponse.class).getFormat(),
+                objectMapper.readerFor(StructuredResponse.class));
+        // Lists are asked for as a JSON array rather than comma-separated text so a cut-off reply can be repaired
+        this.list = new RepairingJsonOutputConverter<>(
+                new BeanOutputConverter<>(new ParameterizedTypeReference<List<String>>() {}).getFormat(),
+                objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, String.class)));
+        this.map = new RepairingJsonOutputConverter<>(
+                new MapOutputConverter().getFormat(),
+                objectMapper.readerFor(objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class)));
+        this.planReader = objectMapper.readerFor(Plan.class);
+    }
+
+    public RepairingJsonOutputConverter<TripPlan> tripPlan() {
+        return tripPlan;
+    }
+
+    public RepairingJsonOutputConverter<List<TripPlan>> tripPlans() {
+        return tripPlans;
+    }
+
+    public RepairingJsonOutputConverter<StructuredResponse> structuredResponse() {
+        return structuredResponse;
+    }
+
+    public RepairingJsonOutputConverter<List<String>> list() {
+        return list;
+    }
+
+    public RepairingJsonOutputConverter<Map<String, Object>> map() {
+        return map;
+    }
+
+    public ObjectReader planReader() {
+        return planReader;
+    }
+}
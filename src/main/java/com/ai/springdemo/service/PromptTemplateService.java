@@ -2,71 +2,260 @@ package com.ai.springdemo.service;
 
 import com.ai.springdemo.dto.PromptTemplate;
 import com.ai.springdemo.dto.PromptTemplate.TemplateVariable;
-import org.springframework.core.io.ClassPathResource;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class PromptTemplateService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PromptTemplateService.class);
+
+    private static final String SUFFIX = ".st";
+
+    private static final List<PromptTemplate> DEFINITIONS = List.of(
+            new PromptTemplate(
+                    "code-review",
+                    "Code Reviewer",
+                    "Review code for bugs, security, and style issues.",
+                    null,
+                    List.of(
+                            new TemplateVariable("language", "Programming Language", "e.g., Java, Python", true),
+                            new TemplateVariable("focus", "Focus Area", "e.g., security, performance, style", true),
+                            new TemplateVariable("code", "Code Snippet", "Paste your code here", true)
+                    )
+            ),
+            new PromptTemplate(
+                    "learning-plan",
+                    "Learning Plan",
+                    "Generate a structured learning plan for a topic.",
+                    null,
+                    List.of(
+                            new TemplateVariable("topic", "Topic", "e.g., Spring Boot", true),
+                            new TemplateVariable("level", "Level", "e.g., beginner, intermediate", true),
+                            new TemplateVariable("duration", "Duration (weeks)", "e.g., 4", true)
+                    )
+            ),
+            new PromptTemplate(
+                    "product-spec",
+                    "Product Spec",
+                    "Draft a concise product specification.",
+                    null,
+                    List.of(
+                            new TemplateVariable("product", "Product", "e.g., AI chat app", true),
+                            new TemplateVariable("audience", "Audience", "e.g., developers", true)
+                    )
+            ),
+            new PromptTemplate(
+                    "rewrite",
+                    "Rewrite with Tone",
+                    "Rewrite text with a specific tone and length.",
+                    null,
+                    List.of(
+                            new TemplateVariable("tone", "Tone", "e.g., professional, friendly", true),
+                            new TemplateVariable("length", "Max Words", "e.g., 120", true),
+                            new TemplateVariable("text", "Text", "Paste your text here", true)
+                    )
+            )
+    );
+
+    private record Snapshot(Map<String, CompiledTemplate> compiled,
+                            Map<String, PromptTemplate> catalog,
+                            List<PromptTemplate> templates,
+                            byte[] json,
+                            String etag) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @Value("${app.prompts.directory:}")
+    private String directory = "";
+
+    private WatchService watchService;
+
+    public PromptTemplateService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!directory.isEmpty()) {
+            // Create a configured but missing directory so templates dropped in later are still picked up
+            Files.createDirectories(Path.of(directory));
+        }
+        reload();
+        if (!directory.isEmpty()) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Path.of(directory).register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread watcher = new Thread(this::watch, "prompt-template-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
     public List<PromptTemplate> getTemplates() {
-        return List.of(
-                new PromptTemplate(
-                        "code-review",
-                        "Code Reviewer",
-                        "Review code for bugs, security, and style issues.",
-                        loadTemplate("prompts/code-review.st"),
-                        List.of(
-                                new TemplateVariable("language", "Programming Language", "e.g., Java, Python", true),
-                                new TemplateVariable("focus", "Focus Area", "e.g., security, performance, style", true),
-                                new TemplateVariable("code", "Code Snippet", "Paste your code here", true)
-                        )
-                ),
-                new PromptTemplate(
-                        "learning-plan",
-                        "Learning Plan",
-                        "Generate a structured learning plan for a topic.",
-                        loadTemplate("prompts/learning-plan.st"),
-                        List.of(
-                                new TemplateVariable("topic", "Topic", "e.g., Spring Boot", true),
-                                new TemplateVariable("level", "Level", "e.g., beginner, intermediate", true),
-                                new TemplateVariable("duration", "Duration (weeks)", "e.g., 4", true)
-                        )
-                ),
-                new PromptTemplate(
-                        "product-spec",
-                        "Product Spec",
-                        "Draft a concise product specification.",
-                        loadTemplate("prompts/product-spec.st"),
-                        List.of(
-                                new TemplateVariable("product", "Product", "e.g., AI chat app", true),
-                                new TemplateVariable("audience", "Audience", "e.g., developers", true)
-                        )
-                ),
-                new PromptTemplate(
-                        "rewrite",
-                        "Rewrite with Tone",
-                        "Rewrite text with a specific tone and length.",
-                        loadTemplate("prompts/rewrite.st"),
-                        List.of(
-                                new TemplateVariable("tone", "Tone", "e.g., professional, friendly", true),
-                                new TemplateVariable("length", "Max Words", "e.g., 120", true),
-                                new TemplateVariable("text", "Text", "Paste your text here", true)
-                        )
-                )
-        );
+        return snapshot.get().templates();
     }
 
-    private String loadTemplate(String resourcePath) {
+    public byte[] getTemplatesJson() {
+        return snapshot.get().json();
+    }
+
+    public String getETag() {
+        return snapshot.get().etag();
+    }
+
+    public CompiledTemplate getTemplate(String name) {
+        CompiledTemplate template = snapshot.get().compiled().get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown prompt template: " + name);
+        }
+        return template;
+    }
+
+    public String render(String templateId, Map<String, String> variables) {
+        Snapshot current = snapshot.get();
+        PromptTemplate promptTemplate = current.catalog().get(templateId);
+        if (promptTemplate == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown prompt template: " + templateId);
+        }
+
+        Map<String, String> values = variables != null ? variables : Map.of();
+        List<String> missing = new ArrayList<>();
+        for (TemplateVariable variable : promptTemplate.getVariables()) {
+            String value = values.get(variable.getName());
+            if (variable.isRequired() && (value == null || value.isBlank())) {
+                missing.add(variable.getName());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Missing required template variables: " + String.join(", ", missing));
+        }
+        return current.compiled().get(templateId).render(values);
+    }
+
+    private void watch() {
         try {
-            ClassPathResource resource = new ClassPathResource(resourcePath);
-            return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8).trim();
-        } catch (IOException ex) {
-            throw new IllegalStateException("Unable to load prompt template: " + resourcePath, ex);
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                try {
+                    reload();
+                } catch (Exception ex) {
+                    // Keep serving the previous snapshot until the directory is fixed
+                    logger.warn("Prompt template reload failed, keeping previous version: {}", ex.getMessage());
+                }
+                if (!key.reset()) {
+                    logger.warn("Prompt template directory {} is no longer watchable", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Shutting down
+        }
+    }
+
+    private void reload() throws IOException {
+        Map<String, String> sources = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:prompts/*" + SUFFIX)) {
+            sources.put(templateName(resource.getFilename()), read(resource.getInputStream()));
+        }
+        if (!directory.isEmpty() && Files.isDirectory(Path.of(directory))) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Path.of(directory), "*" + SUFFIX)) {
+                for (Path file : files) {
+                    sources.put(templateName(file.getFileName().toString()), read(Files.newInputStream(file)));
+                }
+            }
+        }
+
+        Map<String, CompiledTemplate> compiled = new HashMap<>();
+        sources.forEach((name, source) -> compiled.put(name, CompiledTemplate.compile(source)));
+
+        List<PromptTemplate> templates = new ArrayList<>();
+        Map<String, PromptTemplate> catalog = new HashMap<>();
+        for (PromptTemplate definition : DEFINITIONS) {
+            CompiledTemplate template = compiled.get(definition.getId());
+            if (template == null) {
+                throw new IllegalStateException("Unable to load prompt template: prompts/" + definition.getId() + SUFFIX);
+            }
+            PromptTemplate promptTemplate = new PromptTemplate(definition.getId(), definition.getName(),
+                    definition.getDescription(), template.getSource(), definition.getVariables());
+            templates.add(promptTemplate);
+            catalog.put(promptTemplate.getId(), promptTemplate);
+        }
+
+        byte[] json = toJson(templates);
+        snapshot.set(new Snapshot(Map.copyOf(compiled), Map.copyOf(catalog), List.copyOf(templates), json,
+                etag(json)));
+        logger.info("Loaded {} prompt template(s)", compiled.size());
+    }
+
+    private byte[] toJson(List<PromptTemplate> templates) {
+        try {
+            return objectMapper.writeValueAsBytes(templates);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize prompt templates", ex);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static String templateName(String fileName) {
+        return fileName.substring(0, fileName.length() - SUFFIX.length());
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8).trim();
         }
     }
 }
@@ -0,0 +1,328 @@
+package com.ai.springdemo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-provider concurrency limit with a priority-aware wait queue. Free slots go to the waiting class with the
+ * lowest weighted-fair virtual time, each class can hold at most its configured share of the slots, and a waiter
+ * that has been queued longer than the starvation threshold is served next regardless of weight. Callers either park
+ * their thread in {@link #acquire} or, on the reactive path, subscribe to {@link #acquireReactive} and are resumed
+ * by whichever thread frees the slot. Grants are decided under the compartment lock but delivered after it is
+ * released, because a reactive waiter resumes synchronously and runs the rest of its pipeline on the granting thread.
+ */
+@Component
+public class ProviderBulkhead {
+
+    private final Map<ModelProvider, Compartment> compartments = new EnumMap<>(ModelProvider.class);
+
+    public ProviderBulkhead(Environment environment, MeterRegistry meterRegistry) {
+        Duration starvationThreshold = environment.getProperty("app.scheduler.starvation-threshold", Duration.class,
+                Duration.ofSeconds(5));
+        Map<RequestPriority, Integer> weights = new EnumMap<>(RequestPriority.class);
+        Map<RequestPriority, Double> shares = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : RequestPriority.values()) {
+            String prefix = "app.scheduler." + priority.getId() + ".";
+            weights.put(priority, Math.max(1, environment.getProperty(prefix + "weight", Integer.class,
+                    priority.getDefaultWeight())));
+            shares.put(priority, environment.getProperty(prefix + "max-share", Double.class,
+                    priority.getDefaultMaxShare()));
+        }
+        for (ModelProvider provider : ModelProvider.values()) {
+            String prefix = "app.bulkhead." + provider.getId() + ".";
+            int defaultConcurrency = provider == ModelProvider.OLLAMA ? 4 : 32;
+            compartments.put(provider, new Compartment(provider,
+                    environment.getProperty(prefix + "max-concurrent", Integer.class, defaultConcurrency),
+                    environment.getProperty(prefix + "max-queue", Integer.class, 100),
+                    environment.getProperty(prefix + "max-wait", Duration.class, Duration.ofSeconds(30)),
+                    starvationThreshold, weights, shares, meterRegistry));
+        }
+    }
+
+    public void acquire(ModelProvider provider, RequestPriority priority) {
+        compartments.get(provider).acquire(priority);
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquire}: completes once a slot is held and fails with
+     * {@link BulkheadFullException} when the queue is full or the wait times out. Cancelling while queued gives up
+     * the place in line, or hands back the slot if it was granted concurrently.
+     */
+    public Mono<Void> acquireReactive(ModelProvider provider, RequestPriority priority) {
+        return compartments.get(provider).acquireReactive(priority);
+    }
+
+    public void release(ModelProvider provider, RequestPriority priority) {
+        compartments.get(provider).release(priority);
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<Void> granted = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+    }
+
+    private static final class Lane {
+
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private final double stride;
+        private final int maxActive;
+        private double pass;
+        private int active;
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        private Lane(double stride, int maxActive, Timer waitTimer, Counter rejected) {
+            this.stride = stride;
+            this.maxActive = maxActive;
+            this.waitTimer = waitTimer;
+            this.rejected = rejected;
+        }
+
+        private boolean canRun() {
+            return active < maxActive;
+        }
+    }
+
+    private static final class Compartment {
+
+        private final ModelProvider provider;
+        private final int maxConcurrent;
+        private final int maxQueue;
+        private final Duration maxWait;
+        private final long starvationNanos;
+        private final Map<RequestPriority, Lane> lanes = new EnumMap<>(RequestPriority.class);
+        private final ReentrantLock lock = new ReentrantLock();
+        private int active;
+        private int waiting;
+        private double virtualTime;
+
+        private Compartment(ModelProvider provider, int maxConcurrent, int maxQueue, Duration maxWait,
+                            Duration starvationThreshold, Map<RequestPriority, Integer> weights,
+                            Map<RequestPriority, Double> shares, MeterRegistry meterRegistry) {
+            this.provider = provider;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueue = maxQueue;
+            this.maxWait = maxWait;
+            this.starvationNanos = starvationThreshold.toNanos();
+            for (RequestPriority priority : RequestPriority.values()) {
+                int maxActive = Math.max(1, (int) Math.ceil(maxConcurrent * shares.get(priority)));
+                Lane lane = new Lane(1.0 / weights.get(priority), Math.min(maxConcurrent, maxActive),
+                        Timer.builder("llm.bulkhead.wait")
+                                .tag("provider", provider.getId())
+                                .tag("priority", priority.getId())
+                                .publishPercentileHistogram()
+                                .register(meterRegistry),
+                        Counter.builder("llm.bulkhead.rejected")
+                                .tag("provider", provider.getId())
+                                .tag("priority", priority.getId())
+                                .register(meterRegistry));
+                lanes.put(priority, lane);
+                Gauge.builder("llm.bulkhead.queue.depth", this, c -> c.queued(lane))
+                        .tag("provider", provider.getId())
+                        .tag("priority", priority.getId())
+                        .register(meterRegistry);
+                Gauge.builder("llm.bulkhead.active", this, c -> c.running(lane))
+                        .tag("provider", provider.getId())
+                        .tag("priority", priority.getId())
+                        .register(meterRegistry);
+            }
+        }
+
+        private void acquire(RequestPriority priority) {
+            Lane lane = lanes.get(priority);
+            Waiter waiter = enqueue(lane);
+            if (waiter == null) {
+                return;
+            }
+            boolean granted;
+            try {
+                waiter.granted.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                granted = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                granted = false;
+            } catch (ExecutionException | TimeoutException ex) {
+                granted = false;
+            }
+            finishWait(lane, waiter, granted);
+        }
+
+        private Mono<Void> acquireReactive(RequestPriority priority) {
+            return Mono.defer(() -> {
+                Lane lane = lanes.get(priority);
+                Waiter waiter = enqueue(lane);
+                if (waiter == null) {
+                    return Mono.empty();
+                }
+                // The future is only ever completed by dispatch, so cancelling the subscription must not cancel it
+                return Mono.fromFuture(waiter.granted, true)
+                        .thenReturn(Boolean.TRUE)
+                        .timeout(maxWait, Mono.just(Boolean.FALSE))
+                        .doOnNext(granted -> finishWait(lane, waiter, granted))
+                        .doOnCancel(() -> {
+                            if (!abandon(lane, waiter)) {
+                                release(priority);
+                            }
+                        })
+                        .then();
+            });
+        }
+
+        /**
+         * Takes a slot straight away when nobody is queued ahead, otherwise queues a waiter for {@link #dispatch}.
+         * Returns {@code null} when the slot was taken immediately.
+         */
+        private Waiter enqueue(Lane lane) {
+            Waiter waiter = new Waiter();
+            List<Waiter> granted;
+            lock.lock();
+            try {
+                if (waiting == 0 && active < maxConcurrent && lane.canRun()) {
+                    start(lane);
+                    lane.waitTimer.record(0, TimeUnit.NANOSECONDS);
+                    return null;
+                }
+                if (waiting >= maxQueue) {
+                    lane.rejected.increment();
+                    throw new BulkheadFullException("Too many queued requests for " + provider.getId());
+                }
+                if (lane.queue.isEmpty()) {
+                    // A lane returning from idle must not spend credit it built up while it had nothing queued
+                    lane.pass = Math.max(lane.pass, virtualTime);
+                }
+                lane.queue.addLast(waiter);
+                waiting++;
+                granted = dispatch();
+            } finally {
+                lock.unlock();
+            }
+            grant(granted);
+            return waiter;
+        }
+
+        private void finishWait(Lane lane, Waiter waiter, boolean granted) {
+            if (!granted && !abandon(lane, waiter)) {
+                // The slot was handed over between the timeout and taking the lock
+                granted = true;
+            }
+            lane.waitTimer.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            if (!granted) {
+                lane.rejected.increment();
+                throw new BulkheadFullException("Timed out waiting for a " + provider.getId() + " slot");
+            }
+        }
+
+        private void release(RequestPriority priority) {
+            List<Waiter> granted;
+            lock.lock();
+            try {
+                active--;
+                lanes.get(priority).active--;
+                granted = dispatch();
+            } finally {
+                lock.unlock();
+            }
+            grant(granted);
+        }
+
+        private boolean abandon(Lane lane, Waiter waiter) {
+            lock.lock();
+            try {
+                if (lane.queue.remove(waiter)) {
+                    waiting--;
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Hands free slots to waiters and returns them; the caller completes them via {@link #grant} once it has
+         * released the lock.
+         */
+        private List<Waiter> dispatch() {
+            List<Waiter> granted = null;
+            while (active < maxConcurrent) {
+                Lane next = null;
+                long now = System.nanoTime();
+                long oldest = Long.MAX_VALUE;
+                for (Lane lane : lanes.values()) {
+                    Waiter head = lane.queue.peekFirst();
+                    if (head == null || !lane.canRun()) {
+                        continue;
+                    }
+                    if (now - head.enqueuedAt > starvationNanos && head.enqueuedAt < oldest) {
+                        oldest = head.enqueuedAt;
+                        next = lane;
+                    } else if (oldest == Long.MAX_VALUE && (next == null || lane.pass < next.pass)) {
+                        next = lane;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                Waiter waiter = next.queue.pollFirst();
+                waiting--;
+                virtualTime = next.pass;
+                next.pass += next.stride;
+                start(next);
+                if (granted == null) {
+                    granted = new ArrayList<>();
+                }
+                granted.add(waiter);
+            }
+            return granted;
+        }
+
+        private static void grant(List<Waiter> granted) {
+            if (granted != null) {
+                for (Waiter waiter : granted) {
+                    waiter.granted.complete(null);
+                }
+            }
+        }
+
+        private void start(Lane lane) {
+            active++;
+            lane.active++;
+        }
+
+        private double queued(Lane lane) {
+            lock.lock();
+            try {
+                return lane.queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private double running(Lane lane) {
+            lock.lock();
+            try {
+                return lane.active;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ai.springdemo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.converter.StructuredOutputConverter;
+
+public class RepairingJsonOutputConverter<T> implements StructuredOutputConverter<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepairingJsonOutputConverter.class);
+
+    private final String format;
+    private final ObjectReader reader;
+
+    public RepairingJsonOutputConverter(String format, ObjectReader reader) {
+        this.format = format;
+        this.reader = reader;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    public ObjectReader getReader() {
+        return reader;
+    }
+
+    @Override
+    public T convert(String text) {
+        String json = JsonRepair.extract(text);
+        try {
+            return reader.readValue(json);
+        } catch (JsonProcessingException ex) {
+            String repaired = JsonRepair.repair(json);
+            try {
+                T value = reader.readValue(repaired);
+                logger.debug("Repaired malformed model JSON locally: {}", ex.getOriginalMessage());
+                return value;
+            } catch (JsonProcessingException retryEx) {
+                throw new IllegalStateException("Model returned JSON that could not be parsed or repaired: "
+                        + retryEx.getOriginalMessage(), retryEx);
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ai.springdemo.service;
+
+public enum RequestPriority {
+    INTERACTIVE_STREAM("interactive-stream", 8, 1.0),
+    INTERACTIVE("interactive", 4, 1.0),
+    BATCH("batch", 1, 0.5);
+
+    private final String id;
+    private final int defaultWeight;
+    private final double defaultMaxShare;
+
+    RequestPriority(String id, int defaultWeight, double defaultMaxShare) {
+        this.id = id;
+        this.defaultWeight = defaultWeight;
+        this.defaultMaxShare = defaultMaxShare;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    double getDefaultMaxShare() {
+        return defaultMaxShare;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ai.springdemo.service;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spreads calls over several Ollama backends. Each request goes to the healthy backend with the lowest
+ * {@code ewmaLatency * (outstanding + 1)} score. A backend that already has the requested model loaded has its score
+ * multiplied by {@code loadedDiscount}, so it is preferred on a tie or when it is only moderately busier, but a
+ * saturated host still loses to an idle one that would have to load the model first.
+ */
+class RoutingOllamaChatModel implements ChatModel {
+
+    /**
+     * Reactor context key for a concurrent {@code Set<String>} of the backend URLs one request already occupies. A
+     * stream routed with it skips those backends while another healthy one is left and adds its own pick, so a hedge
+     * sharing the set with its primary never queues on the host the primary is stalled on.
+     */
+    static final String ROUTED_BACKENDS = RoutingOllamaChatModel.class.getName() + ".routedBackends";
+
+    private final List<OllamaBackend> backends;
+    private final ChatOptions defaultOptions;
+    private final double loadedDiscount;
+
+    RoutingOllamaChatModel(List<OllamaBackend> backends, ChatOptions defaultOptions, double loadedDiscount) {
+        this.backends = backends;
+        this.defaultOptions = defaultOptions;
+        this.loadedDiscount = Math.min(Math.max(loadedDiscount, 0), 1);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        OllamaBackend backend = select(prompt, null);
+        long start = backend.begin();
+        try {
+            ChatResponse response = backend.getChatModel().call(prompt);
+            backend.recordLatency(start);
+            return response;
+        } catch (RuntimeException ex) {
+            backend.failed();
+            throw ex;
+        } finally {
+            backend.end();
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.deferContextual(context -> {
+            OllamaBackend backend = select(prompt, context.<Set<String>>getOrDefault(ROUTED_BACKENDS, null));
+            long start = backend.begin();
+            AtomicBoolean first = new AtomicBoolean(true);
+            return backend.getChatModel().stream(prompt)
+                    .doOnNext(chunk -> {
+                        // Streams feed the latency average with their time to first chunk
+                        if (first.compareAndSet(true, false)) {
+                            backend.recordLatency(start);
+                        }
+                    })
+                    .doOnError(ex -> backend.failed())
+                    .doFinally(signal -> backend.end());
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return defaultOptions;
+    }
+
+    private OllamaBackend select(Prompt prompt, Set<String> routed) {
+        String model = prompt.getOptions() != null && prompt.getOptions().getModel() != null
+                ? prompt.getOptions().getModel()
+                : defaultOptions.getModel();
+
+        OllamaBackend best = pick(model, routed);
+        if (best == null && routed != null) {
+            // Every other host is down; sharing one beats failing the request
+            best = pick(model, null);
+        }
+        if (best == null) {
+            throw new BulkheadFullException("No healthy Ollama backend available");
+        }
+        if (routed != null) {
+            routed.add(best.getBaseUrl());
+        }
+        return best;
+    }
+
+    private OllamaBackend pick(String model, Set<String> excluded) {
+        OllamaBackend best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (OllamaBackend backend : backends) {
+            if (!backend.isHealthy() || (excluded != null && excluded.contains(backend.getBaseUrl()))) {
+                continue;
+            }
+            double score = backend.score();
+            if (backend.hasLoaded(model)) {
+                score *= loadedDiscount;
+            }
+            if (best == null || score < bestScore) {
+                best = backend;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
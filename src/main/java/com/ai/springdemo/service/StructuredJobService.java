@@ -0,0 +1,142 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.JobInfo;
+import com.ai.springdemo.dto.StructuredOutputRequest;
+import com.ai.springdemo.job.StructuredJob;
+import com.ai.springdemo.job.StructuredJobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class StructuredJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StructuredJobService.class);
+
+    private static final Set<String> OPERATIONS = Set.of(
+            "trip-plan", "trip-spots", "trip-guide", "complete-trip-plans", "answer");
+
+    private final StructuredJobStore jobStore;
+    private final StructuredOutputService structuredOutputService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.jobs.workers:4}")
+    private int workers;
+
+    @Value("${app.jobs.max-queue:200}")
+    private int maxQueue;
+
+    private ThreadPoolExecutor executor;
+
+    public StructuredJobService(StructuredJobStore jobStore, StructuredOutputService structuredOutputService,
+                                ObjectMapper objectMapper) {
+        this.jobStore = jobStore;
+        this.structuredOutputService = structuredOutputService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "structured-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Anything still pending was accepted by a previous run; pick it up again
+        for (StructuredJob job : jobStore.pending()) {
+            schedule(job);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public JobInfo submit(String operation, StructuredOutputRequest request, ClientId clientId) {
+        if (!OPERATIONS.contains(operation)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown structured operation: " + operation);
+        }
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Structured job queue is full");
+        }
+        StructuredJob job = jobStore.submit(clientId.value(), operation, request);
+        schedule(job);
+        return toInfo(job);
+    }
+
+    public JobInfo get(String jobId, ClientId clientId) {
+        return toInfo(findJob(jobId, clientId));
+    }
+
+    /**
+     * Reads the result back from the job log, so callers on an event loop should subscribe to it elsewhere.
+     */
+    public String getResult(String jobId, ClientId clientId) {
+        StructuredJob job = findJob(jobId, clientId);
+        return switch (job.getStatus()) {
+            case SUCCEEDED -> jobStore.result(job);
+            case FAILED -> throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Job " + jobId + " failed: " + job.getError());
+            case PENDING -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + jobId + " is not finished");
+        };
+    }
+
+    private void schedule(StructuredJob job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobStore.fail(job, "Structured job queue is full");
+        }
+    }
+
+    private void run(StructuredJob job) {
+        try {
+            Object result = execute(job.getOperation(), job.getRequest());
+            jobStore.complete(job, objectMapper.writeValueAsString(result));
+        } catch (Exception ex) {
+            logger.warn("Structured job {} ({}) failed", job.getId(), job.getOperation(), ex);
+            jobStore.fail(job, ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+        }
+    }
+
+    private Object execute(String operation, StructuredOutputRequest request) {
+        return switch (operation) {
+            case "trip-plan" -> structuredOutputService.getTripPlan(request);
+            case "trip-spots" -> structuredOutputService.getTripSpots(request);
+            case "trip-guide" -> structuredOutputService.getTripGuide(request);
+            case "complete-trip-plans" -> structuredOutputService.getCompleteTripPlans(request);
+            case "answer" -> structuredOutputService.getStructuredResponse(request);
+            default -> throw new IllegalArgumentException("Unknown structured operation: " + operation);
+        };
+    }
+
+    /**
+     * Another client's job is reported as missing rather than forbidden, so job ids cannot be probed.
+     */
+    private StructuredJob findJob(String jobId, ClientId clientId) {
+        return jobStore.get(jobId)
+                .filter(job -> clientId.value().equals(job.getOwner()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found: " + jobId));
+    }
+
+    private static JobInfo toInfo(StructuredJob job) {
+        return new JobInfo(job.getId(), job.getOperation(), job.getStatus().name(), job.getSubmittedAt(),
+                job.getStatus() != StructuredJob.Status.PENDING ? job.getCompletedAt() : null, job.getError());
+    }
+}
@@ -1,89 +1,220 @@
 package com.ai.springdemo.service;
 
+import com.ai.springdemo.advisor.AuditTokenUsageAdvisor;
+import com.ai.springdemo.advisor.BulkheadAdvisor;
+import com.ai.springdemo.cache.RequestCoalescer;
+import com.ai.springdemo.cache.ResponseCache;
+import com.ai.springdemo.cache.ResponseCacheKey;
+import com.ai.springdemo.cache.SemanticCache;
 import com.ai.springdemo.dto.StructuredOutputRequest;
 import com.ai.springdemo.dto.StructuredResponse;
 import com.ai.springdemo.dto.TripPlan;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.converter.BeanOutputConverter;
-import org.springframework.ai.converter.ListOutputConverter;
-import org.springframework.ai.converter.MapOutputConverter;
-import org.springframework.ai.ollama.OllamaChatModel;
-import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.Resource;
+import org.springframework.ai.converter.StructuredOutputConverter;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 public class StructuredOutputService {
 
-    private final OpenAiChatModel openAiChatModel;
-    private final OllamaChatModel ollamaChatModel;
+    // Free-form answers hold up for a paraphrased question; plans and spot lists hinge on exact destinations and dates
+    private static final Set<String> SEMANTIC_OPERATIONS = Set.of("answer");
 
-    @Value("classpath:prompts/trip-guide-template.st")
-    private Resource tripGuideTemplate;
+    // Templates each cached operation is prompted with; their versions are part of the cache key
+    private static final Map<String, List<String>> OPERATION_TEMPLATES = Map.of(
+            "trip-plan", List.of("trip-guide-template"),
+            "answer", List.of("generic-structured-response", "generic-structured-response-user"));
 
-    @Value("classpath:prompts/generic-structured-response.st")
-    private Resource genericStructuredTemplate;
+    private final ChatClientRegistry chatClientRegistry;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final SemanticCache semanticCache;
+    private final ObjectMapper objectMapper;
+    private final OutputConverterRegistry outputConverters;
 
-    @Value("classpath:prompts/generic-structured-response-user.st")
-    private Resource genericStructuredUserTemplate;
+    private final PromptTemplateService promptTemplateService;
 
-    public StructuredOutputService(OpenAiChatModel openAiChatModel, OllamaChatModel ollamaChatModel) {
-        this.openAiChatModel = openAiChatModel;
-        this.ollamaChatModel = ollamaChatModel;
+    public StructuredOutputService(ChatClientRegistry chatClientRegistry, ResponseCache responseCache,
+                                   RequestCoalescer requestCoalescer, SemanticCache semanticCache,
+                                   ObjectMapper objectMapper, OutputConverterRegistry outputConverters,
+                                   PromptTemplateService promptTemplateService) {
+        this.chatClientRegistry = chatClientRegistry;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.semanticCache = semanticCache;
+        this.objectMapper = objectMapper;
+        this.outputConverters = outputConverters;
+        this.promptTemplateService = promptTemplateService;
     }
 
     public TripPlan getTripPlan(StructuredOutputRequest request) {
-        return createClient(request)
-                .prompt()
-                .system(tripGuideTemplate)
+        return execute("trip-plan", request, new TypeReference<TripPlan>() {}, prompt -> prompt
+                .system(promptTemplateService.getTemplate("trip-guide-template").getSource())
                 .user(request.getMessage())
                 .call()
-                .entity(new BeanOutputConverter<>(TripPlan.class));
+                .entity(outputConverters.tripPlan()));
     }
 
         public StructuredResponse getStructuredResponse(StructuredOutputRequest request) {
-        return createClient(request)
-            .prompt()
-            .system(genericStructuredTemplate)
-            .user(promptUserSpec -> promptUserSpec.text(genericStructuredUserTemplate)
-                .param("message", request.getMessage()))
+        return execute("answer", request, new TypeReference<StructuredResponse>() {}, prompt -> prompt
+            .system(promptTemplateService.getTemplate("generic-structured-response").getSource())
+            .user(promptTemplateService.getTemplate("generic-structured-response-user")
+                .render(Collections.singletonMap("message", request.getMessage())))
             .call()
-            .entity(new BeanOutputConverter<>(StructuredResponse.class));
+            .entity(outputConverters.structuredResponse()));
         }
 
     public List<String> getTripSpots(StructuredOutputRequest request) {
-        return createClient(request)
-                .prompt()
+        return execute("trip-spots", request, new TypeReference<List<String>>() {}, prompt -> prompt
                 .user(request.getMessage())
                 .call()
-                .entity(new ListOutputConverter());
+                .entity(outputConverters.list()));
     }
 
     public Map<String, Object> getTripGuide(StructuredOutputRequest request) {
-        return createClient(request)
-                .prompt()
+        return execute("trip-guide", request, new TypeReference<Map<String, Object>>() {}, prompt -> prompt
                 .user(request.getMessage())
                 .call()
-                .entity(new MapOutputConverter());
+                .entity(outputConverters.map()));
     }
 
     public List<TripPlan> getCompleteTripPlans(StructuredOutputRequest request) {
-        return createClient(request)
-                .prompt()
+        // Long multi-plan generations yield to interactive chat on a shared backend
+        return execute("complete-trip-plans", request, new TypeReference<List<TripPlan>>() {}, prompt -> prompt
+                .advisors(advisor -> advisor.param(BulkheadAdvisor.PRIORITY, RequestPriority.BATCH))
                 .user(request.getMessage())
                 .call()
-                .entity(new ParameterizedTypeReference<>() {});
+                .entity(outputConverters.tripPlans()));
+    }
+
+    public Mono<TripPlan> getTripPlanReactive(StructuredOutputRequest request) {
+        return executeReactive("trip-plan", request, new TypeReference<TripPlan>() {}, outputConverters.tripPlan(),
+                request.getMessage(),
+                prompt -> prompt.system(promptTemplateService.getTemplate("trip-guide-template").getSource()));
+    }
+
+    public Mono<StructuredResponse> getStructuredResponseReactive(StructuredOutputRequest request) {
+        return executeReactive("answer", request, new TypeReference<StructuredResponse>() {},
+                outputConverters.structuredResponse(),
+                promptTemplateService.getTemplate("generic-structured-response-user")
+                        .render(Collections.singletonMap("message", request.getMessage())),
+                prompt -> prompt.system(promptTemplateService.getTemplate("generic-structured-response").getSource()));
+    }
+
+    public Mono<List<String>> getTripSpotsReactive(StructuredOutputRequest request) {
+        return executeReactive("trip-spots", request, new TypeReference<List<String>>() {}, outputConverters.list(),
+                request.getMessage(), prompt -> prompt);
+    }
+
+    public Mono<Map<String, Object>> getTripGuideReactive(StructuredOutputRequest request) {
+        return executeReactive("trip-guide", request, new TypeReference<Map<String, Object>>() {},
+                outputConverters.map(), request.getMessage(), prompt -> prompt);
+    }
+
+    public Mono<List<TripPlan>> getCompleteTripPlansReactive(StructuredOutputRequest request) {
+        return executeReactive("complete-trip-plans", request, new TypeReference<List<TripPlan>>() {},
+                outputConverters.tripPlans(), request.getMessage(),
+                prompt -> prompt.advisors(advisor -> advisor.param(BulkheadAdvisor.PRIORITY, RequestPriority.BATCH)));
+    }
+
+    public Flux<ServerSentEvent<Object>> streamTripPlan(StructuredOutputRequest request) {
+        return stream("trip-plan", request, false, outputConverters.tripPlan().getFormat(),
+                prompt -> prompt.system(promptTemplateService.getTemplate("trip-guide-template").getSource()));
+    }
+
+    public Flux<ServerSentEvent<Object>> streamCompleteTripPlans(StructuredOutputRequest request) {
+        return stream("complete-trip-plans", request, true, outputConverters.tripPlans().getFormat(),
+                prompt -> prompt);
+    }
+
+    private Flux<ServerSentEvent<Object>> stream(String operation, StructuredOutputRequest request, boolean listRoot,
+                                                 String format, UnaryOperator<ChatClient.ChatClientRequestSpec> customizer) {
+        ModelProvider provider = resolveProvider(request);
+        return Flux.defer(() -> {
+                    StructuredStreamParser parser = new StructuredStreamParser(objectMapper,
+                            outputConverters.planReader(), outputConverters.tripPlan().getReader(), listRoot);
+                    return customizer.apply(createPrompt(provider, operation + "/stream"))
+                            .user(request.getMessage() + System.lineSeparator() + format)
+                            .stream()
+                            .content()
+                            .concatMapIterable(parser::feed)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(parser.finish())));
+                })
+                // Failing the Flux cancels the upstream generation, so a schema violation stops token spend early
+                .onErrorResume(ex -> Flux.just(ServerSentEvent.<Object>builder(
+                        ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName()).event("error").build()));
+    }
+
+    private <T> T execute(String operation, StructuredOutputRequest request, TypeReference<T> type,
+                          Function<ChatClient.ChatClientRequestSpec, T> call) {
+        ModelProvider provider = resolveProvider(request);
+        String templates = templateVersions(operation);
+        ResponseCacheKey key = responseCache.keyBuilder(operation, provider).add(templates).add(request.getMessage()).build();
+        Supplier<T> load = () -> requestCoalescer.execute(key, () -> call.apply(createPrompt(provider, operation)));
+        return responseCache.get(provider, null, key, type, SEMANTIC_OPERATIONS.contains(operation)
+                ? () -> semanticCache.get(operation, provider, templates, request.getMessage(), type, load)
+                : load);
     }
 
-    private ChatClient createClient(StructuredOutputRequest request) {
-        if (request != null && "ollama".equalsIgnoreCase(request.getModel())) {
-            return ChatClient.create(ollamaChatModel);
+    /**
+     * Streams the generation and converts the joined text once it completes, mirroring what
+     * {@code call().entity(converter)} does but without holding a thread for the duration. Shares cache keys with
+     * {@link #execute}, so either path can answer from the other's entries.
+     */
+    private <T> Mono<T> executeReactive(String operation, StructuredOutputRequest request, TypeReference<T> type,
+                                        StructuredOutputConverter<T> converter, String userText,
+                                        UnaryOperator<ChatClient.ChatClientRequestSpec> customizer) {
+        ModelProvider provider = resolveProvider(request);
+        String templates = templateVersions(operation);
+        ResponseCacheKey key = responseCache.keyBuilder(operation, provider).add(templates).add(request.getMessage()).build();
+        Supplier<Mono<T>> load = () -> requestCoalescer.executeReactive(key,
+                () -> customizer.apply(createPrompt(provider, operation))
+                        .user(userText + System.lineSeparator() + converter.getFormat())
+                        .stream()
+                        .content()
+                        .collect(Collectors.joining())
+                        .map(converter::convert));
+        return responseCache.getReactive(provider, null, key, type, SEMANTIC_OPERATIONS.contains(operation)
+                ? () -> semanticCache.getReactive(operation, provider, templates, request.getMessage(), type, load)
+                : load);
+    }
+
+    /**
+     * Versions of the templates behind {@code operation}, so answers cached before a hot reload stop matching.
+     */
+    private String templateVersions(String operation) {
+        List<String> names = OPERATION_TEMPLATES.get(operation);
+        if (names == null) {
+            return null;
+        }
+        StringBuilder versions = new StringBuilder();
+        for (String name : names) {
+            versions.append(promptTemplateService.getTemplate(name).getVersion()).append(';');
         }
-        return ChatClient.create(openAiChatModel);
+        return versions.toString();
+    }
+
+    private ModelProvider resolveProvider(StructuredOutputRequest request) {
+        String model = request != null ? request.getModel() : null;
+        return ModelProvider.from(model, ModelProvider.OPENAI);
+    }
+
+    private ChatClient.ChatClientRequestSpec createPrompt(ModelProvider provider, String operation) {
+        return chatClientRegistry.get(provider)
+                .prompt()
+                .advisors(advisor -> advisor.param(AuditTokenUsageAdvisor.ENDPOINT, "structured/" + operation));
     }
 }
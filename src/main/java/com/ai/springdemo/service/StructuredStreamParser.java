@@ -0,0 +1,171 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.PartialPlan;
+import com.ai.springdemo.dto.Plan;
+import com.ai.springdemo.dto.TripPlan;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds streamed model output through Jackson's non-blocking parser and emits a {@code plan} event for every
+ * {@link Plan} and a {@code trip-plan} event for every {@link TripPlan} as soon as its closing brace arrives.
+ * Anything that cannot match the expected shape fails the stream immediately so the generation is cancelled.
+ */
+class StructuredStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader planReader;
+    private final ObjectReader tripPlanReader;
+    private final boolean listRoot;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private int trip;
+    private int planIndex;
+    private TokenBuffer tripCapture;
+    private int tripDepth;
+    private boolean inPlans;
+    private TokenBuffer planCapture;
+    private int planDepth;
+
+    StructuredStreamParser(ObjectMapper objectMapper, ObjectReader planReader, ObjectReader tripPlanReader,
+                           boolean listRoot) {
+        this.objectMapper = objectMapper;
+        this.planReader = planReader;
+        this.tripPlanReader = tripPlanReader;
+        this.listRoot = listRoot;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    List<ServerSentEvent<Object>> feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return List.of();
+        }
+        if (!started) {
+            // Skip any preamble or markdown fence before the JSON document starts
+            int start = indexOfJsonStart(chunk);
+            if (start < 0) {
+                return List.of();
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Malformed JSON from model: " + ex.getMessage(), ex);
+        }
+    }
+
+    List<ServerSentEvent<Object>> finish() {
+        if (finished) {
+            return List.of();
+        }
+        feeder.endOfInput();
+        try {
+            List<ServerSentEvent<Object>> events = drain();
+            if (!finished) {
+                throw new IllegalStateException("Model output ended before the JSON document was complete");
+            }
+            return events;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Malformed JSON from model: " + ex.getMessage(), ex);
+        }
+    }
+
+    private List<ServerSentEvent<Object>> drain() throws IOException {
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            onToken(token, events);
+        }
+        return events;
+    }
+
+    private void onToken(JsonToken token, List<ServerSentEvent<Object>> events) throws IOException {
+        if (depth == 0) {
+            JsonToken expected = listRoot ? JsonToken.START_ARRAY : JsonToken.START_OBJECT;
+            if (token != expected) {
+                throw new IllegalStateException("Expected " + (listRoot ? "an array" : "an object") + " but got " + token);
+            }
+        }
+
+        if (tripCapture == null && token == JsonToken.START_OBJECT && depth == (listRoot ? 1 : 0)) {
+            tripCapture = new TokenBuffer(objectMapper, false);
+            tripDepth = depth;
+            planIndex = 0;
+        } else if (tripCapture != null && depth == tripDepth + 1 && token != JsonToken.FIELD_NAME
+                && !token.isStructEnd() && "plans".equals(parser.currentName())) {
+            if (token == JsonToken.START_ARRAY) {
+                inPlans = true;
+            } else if (token != JsonToken.VALUE_NULL) {
+                throw new IllegalStateException("Expected \"plans\" to be an array but got " + token);
+            }
+        } else if (inPlans && planCapture == null && depth == tripDepth + 2 && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Expected each plan to be an object but got " + token);
+            }
+            planCapture = new TokenBuffer(objectMapper, false);
+            planDepth = depth;
+        }
+
+        if (tripCapture != null) {
+            tripCapture.copyCurrentEvent(parser);
+        }
+        if (planCapture != null) {
+            planCapture.copyCurrentEvent(parser);
+        }
+
+        if (token.isStructStart()) {
+            depth++;
+        } else if (token.isStructEnd()) {
+            depth--;
+            if (planCapture != null && depth == planDepth) {
+                Plan plan = planReader.readValue(planCapture.asParser());
+                events.add(ServerSentEvent.<Object>builder(new PartialPlan(trip, planIndex++, plan)).event("plan").build());
+                planCapture = null;
+            } else if (inPlans && depth == tripDepth + 1) {
+                inPlans = false;
+            } else if (tripCapture != null && depth == tripDepth) {
+                TripPlan tripPlan = tripPlanReader.readValue(tripCapture.asParser());
+                events.add(ServerSentEvent.<Object>builder(tripPlan).event("trip-plan").build());
+                tripCapture = null;
+                trip++;
+            }
+            if (depth == 0) {
+                finished = true;
+            }
+        }
+    }
+
+    private static int indexOfJsonStart(String chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
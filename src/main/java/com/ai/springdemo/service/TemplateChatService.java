@@ -0,0 +1,44 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import com.ai.springdemo.dto.TemplateChatRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class TemplateChatService {
+
+    private final PromptTemplateService promptTemplateService;
+    private final OpenAIChatService openAIChatService;
+
+    public TemplateChatService(PromptTemplateService promptTemplateService, OpenAIChatService openAIChatService) {
+        this.promptTemplateService = promptTemplateService;
+        this.openAIChatService = openAIChatService;
+    }
+
+    public Mono<String> chatReactive(String templateId, TemplateChatRequest request) {
+        return Mono.defer(() -> openAIChatService.chatWithRolesReactive(prepare(templateId, request),
+                "template/" + templateId));
+    }
+
+    /**
+     * Streams a request already rendered by {@link #prepare}.
+     */
+    public Flux<String> chatStream(String templateId, ChatRequest chatRequest) {
+        return openAIChatService.chatWithStream(chatRequest, "template/" + templateId);
+    }
+
+    /**
+     * Renders the template into a chat request, throwing a 404 or 400 {@code ResponseStatusException} for an unknown
+     * template or missing variables. Streaming callers run this before the response starts so those stay HTTP errors.
+     */
+    public ChatRequest prepare(String templateId, TemplateChatRequest request) {
+        ChatRequest chatRequest = new ChatRequest();
+        chatRequest.setMessage(promptTemplateService.render(templateId, request.getVariables()));
+        chatRequest.setModel(request.getModel());
+        chatRequest.setSystemPrompt(request.getSystemPrompt());
+        chatRequest.setOptions(request.getOptions());
+        return chatRequest;
+    }
+}
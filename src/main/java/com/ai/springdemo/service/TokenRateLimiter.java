@@ -0,0 +1,230 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token bucket that budgets on estimated tokens (prompt plus requested completion) rather than
+ * request count. Each bucket is a single CAS-updated "theoretical arrival time" (GCRA), so admission never
+ * takes a lock; callers that would fit within {@code max-wait} reserve their slot and sleep until it opens,
+ * which keeps bursts from one client in FIFO order without touching anyone else's budget. The reactive
+ * variants reserve the same way but wait on a timer instead of a thread.
+ * <p>
+ * Buckets are keyed by {@link ClientId}. At most {@code max-clients} are tracked, and an evicted or idle client
+ * starts again with a full burst. Only configured API keys count as an identity, so rotating made-up
+ * {@code X-Api-Key} values does not buy fresh bursts; such a caller is budgeted by its address.
+ */
+@Component
+public class TokenRateLimiter {
+
+    private final HistoryCompactor historyCompactor;
+    private final Cache<String, Bucket> buckets;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.tokens-per-minute:20000}")
+    private long tokensPerMinute;
+
+    @Value("${app.rate-limit.burst-tokens:8000}")
+    private long burstTokens;
+
+    @Value("${app.rate-limit.max-wait:2s}")
+    private Duration maxWait;
+
+    @Value("${app.rate-limit.max-queue:8}")
+    private int maxQueue;
+
+    @Value("${app.rate-limit.default-max-tokens:512}")
+    private int defaultMaxTokens;
+
+    public TokenRateLimiter(HistoryCompactor historyCompactor, MeterRegistry meterRegistry,
+                            @Value("${app.rate-limit.max-clients:100000}") long maxClients) {
+        this.historyCompactor = historyCompactor;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.waitTimer = Timer.builder("llm.ratelimit.wait")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("llm.ratelimit.rejected")
+                .register(meterRegistry);
+        Gauge.builder("llm.ratelimit.queue.depth", waiting, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public void admit(ClientId clientId, ChatRequest request) {
+        admit(clientId, estimate(request));
+    }
+
+    public void admit(ClientId clientId, List<ChatRequest> requests) {
+        admit(clientId, estimate(requests));
+    }
+
+    public void admit(ClientId clientId, ChatRequest.ChatOptions options, String... texts) {
+        admit(clientId, estimate(options, texts));
+    }
+
+    public Mono<Void> admitReactive(ClientId clientId, ChatRequest request) {
+        return Mono.defer(() -> admitReactive(clientId, estimate(request)));
+    }
+
+    public Mono<Void> admitReactive(ClientId clientId, List<ChatRequest> requests) {
+        return Mono.defer(() -> admitReactive(clientId, estimate(requests)));
+    }
+
+    public Mono<Void> admitReactive(ClientId clientId, ChatRequest.ChatOptions options, String... texts) {
+        return Mono.defer(() -> admitReactive(clientId, estimate(options, texts)));
+    }
+
+    private long estimate(ChatRequest request) {
+        return historyCompactor.estimateTokens(request) + maxTokens(request.getOptions());
+    }
+
+    private long estimate(List<ChatRequest> requests) {
+        long tokens = 0;
+        for (ChatRequest request : requests) {
+            // Null elements are rejected per item by the batch itself; they cost nothing here
+            if (request != null) {
+                tokens += estimate(request);
+            }
+        }
+        return tokens;
+    }
+
+    private long estimate(ChatRequest.ChatOptions options, String... texts) {
+        long tokens = maxTokens(options);
+        for (String text : texts) {
+            tokens += historyCompactor.estimateTokens(text);
+        }
+        return tokens;
+    }
+
+    private void admit(ClientId clientId, long tokens) {
+        Reservation reservation = reserve(clientId, tokens);
+        if (reservation == null) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(reservation.wait);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitExceededException("Interrupted waiting for token budget",
+                    Duration.ofNanos(reservation.wait));
+        } finally {
+            reservation.finish();
+        }
+    }
+
+    private Mono<Void> admitReactive(ClientId clientId, long tokens) {
+        Reservation reservation = reserve(clientId, tokens);
+        if (reservation == null) {
+            return Mono.empty();
+        }
+        return Mono.delay(Duration.ofNanos(reservation.wait))
+                .doFinally(signal -> reservation.finish())
+                .then();
+    }
+
+    /**
+     * Claims the client's next slot, or throws when it lies beyond {@code max-wait}. Returns {@code null} when the
+     * request may go straight away, otherwise a reservation the caller must wait out and then {@code finish()}.
+     */
+    private Reservation reserve(ClientId clientId, long tokens) {
+        if (!enabled) {
+            return null;
+        }
+        ClientId key = clientId != null ? clientId : ClientId.UNKNOWN;
+        Bucket bucket = buckets.get(key.value(), k -> new Bucket());
+
+        // A request larger than the burst waits for a full bucket and is still charged in full; the excess is debt
+        // the client pays off before its next request, so a big batch cannot pass for a single burst
+        long nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, tokensPerMinute);
+        long increment;
+        try {
+            increment = Math.multiplyExact(tokens, nanosPerToken);
+        } catch (ArithmeticException ex) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Request of ~" + tokens + " tokens exceeds the rate limit's accounting range");
+        }
+        long tolerance = Math.max(0, burstTokens - tokens) * nanosPerToken;
+        long maxWaitNanos = maxWait.toNanos();
+
+        long now = System.nanoTime();
+        long wait;
+        while (true) {
+            long tat = bucket.tat.get();
+            long start = tat - now > 0 ? tat : now;
+            wait = start - now - tolerance;
+            if (wait > maxWaitNanos) {
+                rejected.increment();
+                throw new RateLimitExceededException("Token budget exhausted for client " + key,
+                        Duration.ofNanos(wait));
+            }
+            if (wait > 0 && bucket.waiting.get() >= maxQueue) {
+                rejected.increment();
+                throw new RateLimitExceededException("Too many queued requests for client " + key,
+                        Duration.ofNanos(wait));
+            }
+            if (bucket.tat.compareAndSet(tat, start + increment)) {
+                break;
+            }
+        }
+
+        if (wait <= 0) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return null;
+        }
+        bucket.waiting.incrementAndGet();
+        waiting.incrementAndGet();
+        return new Reservation(bucket, wait);
+    }
+
+    private int maxTokens(ChatRequest.ChatOptions options) {
+        return options != null && options.getMaxTokens() != null ? options.getMaxTokens() : defaultMaxTokens;
+    }
+
+    private static final class Bucket {
+
+        // GCRA theoretical arrival time: the instant the bucket would be full again
+        private final AtomicLong tat = new AtomicLong(System.nanoTime());
+        private final AtomicInteger waiting = new AtomicInteger();
+    }
+
+    private final class Reservation {
+
+        private final Bucket bucket;
+        private final long wait;
+
+        private Reservation(Bucket bucket, long wait) {
+            this.bucket = bucket;
+            this.wait = wait;
+        }
+
+        private void finish() {
+            bucket.waiting.decrementAndGet();
+            waiting.decrementAndGet();
+            waitTimer.record(wait, TimeUnit.NANOSECONDS);
+        }
+    }
+}
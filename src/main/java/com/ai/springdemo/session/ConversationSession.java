@@ -0,0 +1,49 @@
+package com.ai.springdemo.session;
+
+import com.ai.springdemo.dto.ChatRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ConversationSession {
+
+    private final String id;
+    private final String systemPrompt;
+    private final List<ChatRequest.ConversationMessage> messages = new ArrayList<>();
+    private volatile long lastAccessMillis;
+
+    public ConversationSession(String id, String systemPrompt, long lastAccessMillis) {
+        this.id = id;
+        this.systemPrompt = systemPrompt;
+        this.lastAccessMillis = lastAccessMillis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public void touch(long nowMillis) {
+        this.lastAccessMillis = nowMillis;
+    }
+
+    public synchronized List<ChatRequest.ConversationMessage> history() {
+        return Collections.unmodifiableList(new ArrayList<>(messages));
+    }
+
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    synchronized void append(String role, String content) {
+        messages.add(new ChatRequest.ConversationMessage(role, content));
+    }
+}
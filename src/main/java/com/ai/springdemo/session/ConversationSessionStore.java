@@ -0,0 +1,174 @@
+package com.ai.springdemo.session;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conversation sessions, held in memory and persisted to a {@link SessionLog}. Every change that has to reach both
+ * the map and the log holds the log's monitor, which is also what {@link SessionLog#rewrite} holds while compacting,
+ * so a compaction never snapshots a session without a record that is already in the old log.
+ */
+@Component
+public class ConversationSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSessionStore.class);
+
+    private final Map<String, ConversationSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong logRecords = new AtomicLong();
+
+    @Value("${app.sessions.log-file:${java.io.tmpdir}/spring-ai-demo/sessions.log}")
+    private Path logFile;
+
+    @Value("${app.sessions.initial-log-size:16777216}")
+    private long initialLogSize;
+
+    @Value("${app.sessions.idle-timeout:2h}")
+    private Duration idleTimeout;
+
+    @Value("${app.sessions.compaction-dead-ratio:0.5}")
+    private double compactionDeadRatio;
+
+    private SessionLog log;
+
+    @PostConstruct
+    void init() throws IOException {
+        log = new SessionLog(logFile, initialLogSize);
+        log.replay((type, sessionId, timestamp, role, content) -> {
+            logRecords.incrementAndGet();
+            apply(type, sessionId, timestamp, role, content);
+        });
+        evictExpired();
+        // Start every run from a compact log that only holds live sessions
+        rewrite();
+        logger.info("Restored {} conversation session(s) from {}", sessions.size(), logFile);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        log.close();
+    }
+
+    public ConversationSession create(String systemPrompt) {
+        long now = System.currentTimeMillis();
+        ConversationSession session = new ConversationSession(UUID.randomUUID().toString(), systemPrompt, now);
+        synchronized (log) {
+            write(SessionLog.CREATE, session.getId(), now, SessionLog.ROLE_NONE, systemPrompt);
+            sessions.put(session.getId(), session);
+        }
+        return session;
+    }
+
+    public Optional<ConversationSession> get(String sessionId) {
+        ConversationSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch(System.currentTimeMillis());
+        }
+        return Optional.ofNullable(session);
+    }
+
+    public void appendTurn(ConversationSession session, String userMessage, String assistantMessage) {
+        long now = System.currentTimeMillis();
+        synchronized (log) {
+            write(SessionLog.APPEND, session.getId(), now, SessionLog.ROLE_USER, userMessage);
+            write(SessionLog.APPEND, session.getId(), now, SessionLog.ROLE_ASSISTANT, assistantMessage);
+            session.append("user", userMessage);
+            session.append("assistant", assistantMessage);
+        }
+        session.touch(now);
+    }
+
+    public boolean delete(String sessionId) {
+        ConversationSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return false;
+        }
+        write(SessionLog.DELETE, sessionId, System.currentTimeMillis(), SessionLog.ROLE_NONE, null);
+        return true;
+    }
+
+    /**
+     * Drops idle sessions and, once most of the log describes sessions that are gone, rewrites it without them.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.eviction-interval:5m}")
+    public void evictIdle() throws IOException {
+        evictExpired();
+        long total = logRecords.get();
+        long live = sessions.values().stream().mapToLong(session -> 1L + session.size()).sum();
+        if (total > 0 && (double) (total - live) / total >= compactionDeadRatio) {
+            rewrite();
+        }
+    }
+
+    private void evictExpired() {
+        long cutoff = System.currentTimeMillis() - idleTimeout.toMillis();
+        sessions.values().removeIf(session -> {
+            if (session.getLastAccessMillis() >= cutoff) {
+                return false;
+            }
+            write(SessionLog.DELETE, session.getId(), System.currentTimeMillis(), SessionLog.ROLE_NONE, null);
+            return true;
+        });
+    }
+
+    private void rewrite() throws IOException {
+        synchronized (log) {
+            AtomicLong written = new AtomicLong();
+            log.rewrite(target -> {
+                for (ConversationSession session : sessions.values()) {
+                    target.append(SessionLog.CREATE, session.getId(), session.getLastAccessMillis(),
+                            SessionLog.ROLE_NONE, session.getSystemPrompt());
+                    written.incrementAndGet();
+                    for (var msg : session.history()) {
+                        target.append(SessionLog.APPEND, session.getId(), session.getLastAccessMillis(),
+                                roleCode(msg.getRole()), msg.getContent());
+                        written.incrementAndGet();
+                    }
+                }
+            });
+            logRecords.set(written.get());
+        }
+    }
+
+    private void apply(byte type, String sessionId, long timestamp, byte role, String content) {
+        switch (type) {
+            case SessionLog.CREATE -> sessions.put(sessionId, new ConversationSession(sessionId, content, timestamp));
+            case SessionLog.APPEND -> {
+                ConversationSession session = sessions.get(sessionId);
+                if (session != null) {
+                    session.append(role == SessionLog.ROLE_ASSISTANT ? "assistant" : "user", content);
+                    session.touch(timestamp);
+                }
+            }
+            case SessionLog.DELETE -> sessions.remove(sessionId);
+            default -> logger.warn("Skipping unknown session log record type {}", type);
+        }
+    }
+
+    private void write(byte type, String sessionId, long timestamp, byte role, String content) {
+        try {
+            log.append(type, sessionId, timestamp, role, content);
+            logRecords.incrementAndGet();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write session log " + logFile, ex);
+        }
+    }
+
+    private static byte roleCode(String role) {
+        return "assistant".equalsIgnoreCase(role) ? SessionLog.ROLE_ASSISTANT : SessionLog.ROLE_USER;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ai.springdemo.session;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Append-only, memory-mapped transcript log. Each record is
+ * {@code [int length][byte type][long idHigh][long idLow][long timestamp][byte role][utf-8 content]};
+ * a zero length marks the end of the written region. A single mapping cannot exceed 2 GiB, so the log grows up to
+ * that limit and then refuses further appends; the owning store is expected to compact it well before then.
+ */
+class SessionLog implements Closeable {
+
+    static final byte CREATE = 1;
+    static final byte APPEND = 2;
+    static final byte DELETE = 3;
+
+    static final byte ROLE_NONE = 0;
+    static final byte ROLE_USER = 1;
+    static final byte ROLE_ASSISTANT = 2;
+
+    private static final int HEADER_BYTES = 1 + 8 + 8 + 8 + 1;
+
+    static final long MAX_CAPACITY = Integer.MAX_VALUE;
+
+    interface RecordHandler {
+        void onRecord(byte type, String sessionId, long timestamp, byte role, String content);
+    }
+
+    private final Path file;
+    private final long initialCapacity;
+    private final long maxCapacity;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    SessionLog(Path file, long initialCapacity) throws IOException {
+        this(file, initialCapacity, MAX_CAPACITY);
+    }
+
+    SessionLog(Path file, long initialCapacity, long maxCapacity) throws IOException {
+        this.file = file;
+        this.maxCapacity = Math.min(maxCapacity, MAX_CAPACITY);
+        this.initialCapacity = Math.min(initialCapacity, this.maxCapacity);
+        open();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.min(Math.max(channel.size(), initialCapacity), maxCapacity));
+    }
+
+    /**
+     * Bytes written so far, i.e. the offset the next record will be appended at.
+     */
+    synchronized long size() {
+        return buffer.position();
+    }
+
+    void replay(RecordHandler handler) {
+        buffer.position(0);
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length < HEADER_BYTES || length > buffer.remaining() - 4) {
+                break;
+            }
+            buffer.position(buffer.position() + 4);
+            byte type = buffer.get();
+            String sessionId = new UUID(buffer.getLong(), buffer.getLong()).toString();
+            long timestamp = buffer.getLong();
+            byte role = buffer.get();
+            byte[] content = new byte[length - HEADER_BYTES];
+            buffer.get(content);
+            handler.onRecord(type, sessionId, timestamp, role, new String(content, StandardCharsets.UTF_8));
+        }
+    }
+
+    synchronized void append(byte type, String sessionId, long timestamp, byte role, String content) throws IOException {
+        byte[] bytes = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = HEADER_BYTES + bytes.length;
+        ensureCapacity(4 + length + 4);
+
+        UUID uuid = UUID.fromString(sessionId);
+        int start = buffer.position();
+        // Write the body first and publish the length last so a crash mid-write never exposes a torn record
+        buffer.position(start + 4);
+        buffer.put(type)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .putLong(timestamp)
+                .put(role)
+                .put(bytes);
+        buffer.putInt(buffer.position(), 0);
+        buffer.putInt(start, length);
+    }
+
+    /**
+     * Rewrites the log so it contains only the records emitted by {@code writer}, then swaps it in atomically.
+     */
+    synchronized void rewrite(LogWriter writer) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (SessionLog target = new SessionLog(compacted, initialCapacity, maxCapacity)) {
+            writer.writeTo(target);
+        }
+        close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        replay((type, sessionId, timestamp, role, content) -> { });
+    }
+
+    interface LogWriter {
+        void writeTo(SessionLog log) throws IOException;
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        int position = buffer.position();
+        if ((long) position + needed > maxCapacity) {
+            throw new IOException("Session log " + file + " is full: " + position + " of " + maxCapacity
+                    + " mappable bytes used, cannot append " + needed + " more");
+        }
+        long capacity = buffer.capacity();
+        while (capacity - position < needed) {
+            capacity = Math.min(capacity * 2, maxCapacity);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.position(position);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
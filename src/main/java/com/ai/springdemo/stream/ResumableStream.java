@@ -0,0 +1,157 @@
+package com.ai.springdemo.stream;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One generation detached from the connection that started it. Upstream chunks are coalesced into frames, every
+ * frame gets a sequence number, and the last {@code capacity} frames are kept in a replay sink so a client that
+ * reconnects can pick up after the last frame it saw. All mutation happens under the stream's monitor, which also
+ * keeps emissions into the sink serialized.
+ */
+final class ResumableStream {
+
+    private final String id;
+    private final int capacity;
+    private final long intervalNanos;
+    private final int maxBytes;
+    private final Scheduler timer;
+    private final Sinks.Many<Frame> frames;
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingBytes;
+    private long lastSeq;
+    private int subscribers;
+    private boolean done;
+    private Disposable upstream;
+    private Disposable flushTask;
+
+    ResumableStream(String id, int capacity, Duration interval, int maxBytes, Scheduler timer) {
+        this.id = id;
+        this.capacity = capacity;
+        this.intervalNanos = interval.toNanos();
+        this.maxBytes = maxBytes;
+        this.timer = timer;
+        this.frames = Sinks.many().replay().limit(capacity);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    synchronized void connect(Flux<String> source, Runnable onTerminate) {
+        upstream = source
+                .doFinally(signal -> onTerminate.run())
+                .subscribe(this::onChunk, this::onError, this::onComplete);
+    }
+
+    /**
+     * Frames after {@code afterSeq}, replayed from the buffer and then followed live.
+     */
+    Flux<ServerSentEvent<String>> events(long afterSeq) {
+        return frames.asFlux()
+                .skipWhile(frame -> frame.seq() <= afterSeq)
+                .map(frame -> ServerSentEvent.builder(frame.data()).id(id + ":" + frame.seq()).build())
+                .doOnSubscribe(subscription -> attach())
+                .doFinally(signal -> detach());
+    }
+
+    /**
+     * Whether every frame after {@code afterSeq} is still buffered.
+     */
+    synchronized boolean canResumeAfter(long afterSeq) {
+        return afterSeq >= 0 && afterSeq <= lastSeq && afterSeq >= lastSeq - capacity;
+    }
+
+    synchronized boolean isIdle() {
+        return subscribers == 0;
+    }
+
+    synchronized boolean isDone() {
+        return done;
+    }
+
+    synchronized void cancel() {
+        if (!done && upstream != null) {
+            upstream.dispose();
+            done = true;
+            frames.tryEmitComplete();
+        }
+    }
+
+    private synchronized void attach() {
+        subscribers++;
+    }
+
+    private synchronized void detach() {
+        subscribers--;
+    }
+
+    private synchronized void onChunk(String chunk) {
+        pending.append(chunk);
+        pendingBytes += utf8Length(chunk);
+        if (intervalNanos <= 0 || (maxBytes > 0 && pendingBytes >= maxBytes)) {
+            flush();
+        } else if (flushTask == null) {
+            flushTask = timer.schedule(this::scheduledFlush, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void onError(Throwable error) {
+        flush();
+        done = true;
+        frames.tryEmitError(error);
+    }
+
+    private synchronized void onComplete() {
+        flush();
+        done = true;
+        frames.tryEmitComplete();
+    }
+
+    private synchronized void scheduledFlush() {
+        flushTask = null;
+        if (!done) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (flushTask != null) {
+            flushTask.dispose();
+            flushTask = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        frames.tryEmitNext(new Frame(++lastSeq, pending.toString()));
+        pending.setLength(0);
+        pendingBytes = 0;
+    }
+
+    private static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isSurrogate(c)) {
+                // A surrogate pair encodes as four bytes, two per half
+                bytes += 2;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private record Frame(long seq, String data) {
+    }
+}
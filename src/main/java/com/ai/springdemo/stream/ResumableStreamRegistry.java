@@ -0,0 +1,112 @@
+package com.ai.springdemo.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Turns token streams into coalesced, resumable SSE streams. Each generation runs independently of the connection
+ * that started it and tags its frames {@code <streamId>:<seq>}; a client that reconnects with that value in
+ * {@code Last-Event-ID} gets the frames it missed followed by the live tail instead of a fresh generation.
+ * A generation with no listener for {@code resume-window} is cancelled, and finished streams stay resumable for the
+ * same window before they are dropped.
+ */
+@Component
+public class ResumableStreamRegistry {
+
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final Map<String, ResumableStream> streams = new ConcurrentHashMap<>();
+    private final Scheduler timer = Schedulers.parallel();
+    private final Counter resumed;
+    private final Counter abandoned;
+
+    @Value("${app.streaming.coalesce-interval:50ms}")
+    private Duration coalesceInterval;
+
+    @Value("${app.streaming.coalesce-max-bytes:1024}")
+    private int coalesceMaxBytes;
+
+    @Value("${app.streaming.replay-frames:512}")
+    private int replayFrames;
+
+    @Value("${app.streaming.resume-window:30s}")
+    private Duration resumeWindow;
+
+    public ResumableStreamRegistry(MeterRegistry meterRegistry) {
+        this.resumed = Counter.builder("llm.stream.resumed")
+                .register(meterRegistry);
+        this.abandoned = Counter.builder("llm.stream.abandoned")
+                .register(meterRegistry);
+        Gauge.builder("llm.stream.active", streams, Map::size)
+                .register(meterRegistry);
+    }
+
+    public Flux<ServerSentEvent<String>> start(Supplier<Flux<String>> source) {
+        return Flux.defer(() -> {
+            ResumableStream stream = new ResumableStream(UUID.randomUUID().toString(), replayFrames,
+                    coalesceInterval, coalesceMaxBytes, timer);
+            streams.put(stream.getId(), stream);
+            stream.connect(Flux.defer(source), () -> retire(stream));
+            return watch(stream, stream.events(0));
+        });
+    }
+
+    /**
+     * Resumes the stream named by a {@code Last-Event-ID} value, or returns empty when it is unknown, expired or
+     * has already dropped frames past that point. Callers then start a new stream, whose different id tells the
+     * client to discard what it had.
+     */
+    public Optional<Flux<ServerSentEvent<String>>> resume(String lastEventId) {
+        if (lastEventId == null) {
+            return Optional.empty();
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+        ResumableStream stream = streams.get(lastEventId.substring(0, separator));
+        long seq;
+        try {
+            seq = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+        if (stream == null || !stream.canResumeAfter(seq)) {
+            return Optional.empty();
+        }
+        resumed.increment();
+        return Optional.of(watch(stream, stream.events(seq)));
+    }
+
+    private Flux<ServerSentEvent<String>> watch(ResumableStream stream, Flux<ServerSentEvent<String>> events) {
+        return events.doFinally(signal -> {
+            if (!stream.isDone()) {
+                timer.schedule(() -> {
+                    if (stream.isIdle() && !stream.isDone()) {
+                        abandoned.increment();
+                        stream.cancel();
+                    }
+                }, resumeWindow.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private void retire(ResumableStream stream) {
+        timer.schedule(() -> streams.remove(stream.getId(), stream), resumeWindow.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
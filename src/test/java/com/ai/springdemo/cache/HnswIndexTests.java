@@ -0,0 +1,146 @@
+package com.ai.springdemo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTests {
+
+    private static final int DIMENSIONS = 32;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Test
+    void findsTheExactNearestNeighbourForAlmostEveryQuery() {
+        float[][] vectors = new float[2000][];
+        HnswIndex index = new HnswIndex(DIMENSIONS, vectors.length, 16, 64);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnitVector();
+            assertThat(index.add(vectors[i])).isEqualTo(i);
+        }
+
+        int found = 0;
+        int queries = 200;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnitVector();
+            HnswIndex.Candidate candidate = index.search(query, 64, node -> true);
+            if (candidate != null && candidate.node() == bruteForceNearest(vectors, query)) {
+                found++;
+            }
+        }
+
+        assertThat((double) found / queries).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void neverReturnsATombstoneAndRecyclesItsSlotOnceFull() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 64, 8, 32);
+        float[][] vectors = new float[64][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomUnitVector();
+            index.add(vectors[i]);
+        }
+        assertThat(index.add(randomUnitVector())).isEqualTo(-1);
+
+        // Two tombstones, since the one that happens to be the entry point is never recycled
+        index.remove(10);
+        index.remove(11);
+
+        assertThat(index.removed()).isEqualTo(2);
+        assertThat(index.search(vectors[10], 32, node -> true).node()).isNotIn(10, 11);
+        assertThat(index.search(vectors[11], 32, node -> true).node()).isNotIn(10, 11);
+
+        float[] replacement = randomUnitVector();
+        int recycled = index.add(replacement);
+        assertThat(recycled).isIn(10, 11);
+        assertThat(index.removed()).isEqualTo(1);
+        assertThat(index.vector(recycled)).containsExactly(replacement);
+        HnswIndex.Candidate hit = index.search(replacement, 32, node -> true);
+        assertThat(hit.node()).isEqualTo(recycled);
+        assertThat(hit.similarity()).isCloseTo(1.0f, within(1e-5f));
+    }
+
+    @Test
+    void keepsTheEntryPointSlotWhenEveryNodeIsRemoved() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 16, 4, 16);
+        for (int i = 0; i < 16; i++) {
+            index.add(randomUnitVector());
+        }
+        for (int node = 0; node < 16; node++) {
+            index.remove(node);
+        }
+        assertThat(index.search(randomUnitVector(), 16, node -> true)).isNull();
+
+        // Every tombstone but the entry point is reused, and each recycled vector is found again
+        for (int i = 0; i < 15; i++) {
+            float[] vector = randomUnitVector();
+            int node = index.add(vector);
+            assertThat(node).isNotNegative();
+            assertThat(index.search(vector, 16, candidate -> true).node()).isEqualTo(node);
+        }
+        assertThat(index.add(randomUnitVector())).isEqualTo(-1);
+        assertThat(index.removed()).isEqualTo(1);
+    }
+
+    @Test
+    void skipsRejectedCandidatesInFavourOfTheNextNearest() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, 32, 8, 32);
+        float[] target = randomUnitVector();
+        int exact = index.add(target);
+        int near = index.add(perturb(target, 0.05f));
+        for (int i = 0; i < 30; i++) {
+            index.add(randomUnitVector());
+        }
+
+        assertThat(index.search(target, 16, node -> true).node()).isEqualTo(exact);
+        assertThat(index.search(target, 16, node -> node != exact).node()).isEqualTo(near);
+        assertThat(index.search(target, 16, node -> false)).isNull();
+    }
+
+    private float[] randomUnitVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return normalize(vector);
+    }
+
+    private float[] perturb(float[] vector, float amount) {
+        float[] moved = vector.clone();
+        for (int i = 0; i < moved.length; i++) {
+            moved[i] += (float) (random.nextDouble() * 2 - 1) * amount;
+        }
+        return normalize(moved);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float component : vector) {
+            norm += component * component;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static int bruteForceNearest(float[][] vectors, float[] query) {
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int node = 0; node < vectors.length; node++) {
+            float score = 0;
+            for (int i = 0; i < query.length; i++) {
+                score += query[i] * vectors[node][i];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = node;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,175 @@
+package com.ai.springdemo.cache;
+
+import com.ai.springdemo.service.ModelProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTests {
+
+    private static final ResponseCacheKey KEY = ResponseCacheKey.builder("chat", ModelProvider.OLLAMA, "llama3")
+            .add("What is GCRA?")
+            .build();
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+        ReflectionTestUtils.setField(coalescer, "followerTimeout", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void handsTheLeadersExceptionToEveryParkedFollower() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        Thread leader = call(failures, () -> {
+            await(release);
+            throw new IllegalStateException("model unavailable");
+        });
+        awaitLoadStarted();
+        Thread first = call(failures, () -> "follower ran its own load");
+        Thread second = call(failures, () -> "follower ran its own load");
+        awaitParked(first);
+        awaitParked(second);
+
+        release.countDown();
+        for (Thread thread : List.of(leader, first, second)) {
+            thread.join(5000);
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(failures).hasSize(3)
+                .allSatisfy(failure -> assertThat(failure).isInstanceOf(IllegalStateException.class)
+                        .hasMessage("model unavailable"));
+    }
+
+    @Test
+    void givesUpOnASlowLeaderWithAGatewayTimeout() throws InterruptedException {
+        ReflectionTestUtils.setField(coalescer, "followerTimeout", Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = call(new CopyOnWriteArrayList<>(), () -> {
+            await(release);
+            return "late";
+        });
+        awaitLoadStarted();
+
+        assertThatThrownBy(() -> coalescer.execute(KEY, () -> "follower ran its own load"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT));
+
+        release.countDown();
+        leader.join(5000);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void sharesOneReactiveLoadAndItsErrorBetweenSubscribers() {
+        Sinks.One<String> upstream = Sinks.one();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            coalescer.executeReactive(KEY, () -> {
+                loads.incrementAndGet();
+                return upstream.asMono();
+            }).subscribe(value -> { }, failures::add);
+        }
+
+        upstream.tryEmitError(new IllegalStateException("model unavailable"));
+
+        assertThat(loads).hasValue(1);
+        assertThat(failures).hasSize(2).allSatisfy(failure -> assertThat(failure).hasMessage("model unavailable"));
+        // The failed call is no longer in flight, so the next request loads afresh
+        coalescer.executeReactive(KEY, () -> {
+            loads.incrementAndGet();
+            return Mono.just("fresh");
+        }).block(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void keepsStreamingToOtherSubscribersWhenOneCancels() {
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        Flux<String> source = tokens.asFlux().doOnCancel(() -> upstreamCancelled.set(true));
+        List<String> leaving = new CopyOnWriteArrayList<>();
+        List<String> staying = new CopyOnWriteArrayList<>();
+
+        Disposable first = coalescer.stream(KEY, () -> {
+            loads.incrementAndGet();
+            return source;
+        }).subscribe(leaving::add);
+        tokens.tryEmitNext("Hel");
+        Disposable second = coalescer.stream(KEY, () -> {
+            loads.incrementAndGet();
+            return source;
+        }).subscribe(staying::add);
+        first.dispose();
+        tokens.tryEmitNext("lo");
+
+        assertThat(loads).hasValue(1);
+        assertThat(upstreamCancelled).isFalse();
+        assertThat(leaving).containsExactly("Hel");
+        assertThat(staying).containsExactly("Hel", "lo");
+
+        second.dispose();
+        assertThat(upstreamCancelled).isTrue();
+    }
+
+    private Thread call(List<Throwable> failures, Supplier<String> load) {
+        Thread thread = new Thread(() -> {
+            try {
+                coalescer.execute(KEY, () -> {
+                    loads.incrementAndGet();
+                    return load.get();
+                });
+            } catch (RuntimeException ex) {
+                failures.add(ex);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void awaitLoadStarted() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loads.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    private static void awaitParked(Thread follower) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (follower.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(follower.getState()).isEqualTo(Thread.State.TIMED_WAITING);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ai.springdemo.cache;
+
+import com.ai.springdemo.service.ChatClientRegistry;
+import com.ai.springdemo.service.ModelProvider;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.ollama.OllamaEmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SemanticCacheTests {
+
+    private static final ModelProvider PROVIDER = ModelProvider.OLLAMA;
+    private static final TypeReference<String> STRING_TYPE = new TypeReference<>() {};
+
+    private final Map<String, float[]> embeddings = new HashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SemanticCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        OllamaEmbeddingModel embeddingModel = mock(OllamaEmbeddingModel.class);
+        when(embeddingModel.embed(anyString())).thenAnswer(invocation -> embeddings.get(invocation.getArgument(0)));
+        ObjectProvider<OllamaEmbeddingModel> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(embeddingModel);
+        when(provider.getObject()).thenReturn(embeddingModel);
+        ResponseCache responseCache = new ResponseCache(new ObjectMapper(), mock(ChatClientRegistry.class),
+                new MockEnvironment(), 100, Duration.ofHours(1));
+        ReflectionTestUtils.setField(responseCache, "ollamaTemperature", 0.7);
+
+        cache = new SemanticCache(provider, responseCache, mock(ChatClientRegistry.class), meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxTemperature", 0.7);
+        ReflectionTestUtils.setField(cache, "similarityThreshold", 0.92);
+        ReflectionTestUtils.setField(cache, "maxEntries", 8);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "m", 4);
+        ReflectionTestUtils.setField(cache, "efConstruction", 16);
+        ReflectionTestUtils.setField(cache, "efSearch", 16);
+    }
+
+    @Test
+    void servesAFreshMatchWhenTheNearestEntryHasExpired() throws InterruptedException {
+        embeddings.put("stale", new float[]{1, 0, 0});
+        embeddings.put("fresh", new float[]{0.95f, 0.31f, 0});
+        embeddings.put("query", new float[]{1, 0.05f, 0});
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMillis(50));
+
+        get("stale", "stale answer");
+        Thread.sleep(100);
+        get("fresh", "fresh answer");
+
+        assertThat(get("query", "loaded")).isEqualTo("fresh answer");
+    }
+
+    @Test
+    void evictsTheLeastRecentlyHitEntryWhenTheNamespaceIsFull() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        embeddings.put("first", new float[]{1, 0, 0});
+        embeddings.put("second", new float[]{0, 1, 0});
+        embeddings.put("third", new float[]{0, 0, 1});
+
+        get("first", "first answer");
+        get("second", "second answer");
+        assertThat(get("first", "reloaded")).isEqualTo("first answer");
+        get("third", "third answer");
+
+        assertThat(get("first", "reloaded")).isEqualTo("first answer");
+        assertThat(get("second", "reloaded")).isEqualTo("reloaded");
+        assertThat(meterRegistry.counter("llm.semantic.cache.evictions", "cause", "lru").count()).isEqualTo(2);
+    }
+
+    @Test
+    void bypassesCallsAboveItsTemperatureGate() {
+        embeddings.put("question", new float[]{1, 0, 0});
+        ReflectionTestUtils.setField(cache, "maxTemperature", 0.0);
+
+        get("question", "first");
+
+        assertThat(get("question", "second")).isEqualTo("second");
+    }
+
+    @Test
+    void decodesAFreshCopyForEveryHit() {
+        embeddings.put("list", new float[]{1, 0, 0});
+        TypeReference<List<String>> type = new TypeReference<>() {};
+
+        List<String> loaded = cache.get("answer", PROVIDER, "v1", "list", type, () -> new ArrayList<>(List.of("a")));
+        loaded.add("changed by the first caller");
+        List<String> hit = cache.get("answer", PROVIDER, "v1", "list", type, () -> List.of("reloaded"));
+        hit.add("changed by the second caller");
+
+        assertThat(cache.get("answer", PROVIDER, "v1", "list", type, () -> List.of("reloaded"))).containsExactly("a");
+    }
+
+    @Test
+    void keepsAnAnswerLoadedWhileTheSweepDroppedItsEmptyNamespace() {
+        embeddings.put("question", new float[]{1, 0, 0});
+
+        // The namespace is still empty while the model generates, so the sweep lets it go
+        cache.get("answer", PROVIDER, "v1", "question", STRING_TYPE, () -> {
+            cache.sweep();
+            return "answer";
+        });
+
+        assertThat(get("question", "reloaded")).isEqualTo("answer");
+    }
+
+    private String get(String text, String loaded) {
+        return cache.get("answer", PROVIDER, "v1", text, STRING_TYPE, () -> loaded);
+    }
+}
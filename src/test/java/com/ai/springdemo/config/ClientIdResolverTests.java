@@ -0,0 +1,34 @@
+package com.ai.springdemo.config;
+
+import com.ai.springdemo.service.ClientId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientIdResolverTests {
+
+    private final ClientIdResolver resolver = new ClientIdResolver(List.of("team-a-secret", " team-b-secret ", ""));
+
+    @Test
+    void ignoresAKeyThatIsNotConfigured() {
+        assertThat(resolver.resolve(null, "made-up", "10.0.0.1")).isEqualTo(ClientId.of(null, "10.0.0.1"));
+        assertThat(resolver.resolve(null, "", "10.0.0.1")).isEqualTo(ClientId.of(null, "10.0.0.1"));
+    }
+
+    @Test
+    void identifiesAConfiguredKeyByItsFingerprint() {
+        ClientId teamA = resolver.resolve(null, "team-a-secret", "10.0.0.1");
+
+        assertThat(teamA).isEqualTo(resolver.resolve(null, " team-a-secret", "10.0.0.2"));
+        assertThat(teamA).isNotEqualTo(resolver.resolve(null, "team-b-secret", "10.0.0.1"));
+        assertThat(teamA.value()).startsWith("key:").doesNotContain("secret");
+    }
+
+    @Test
+    void prefersTheAuthenticatedPrincipal() {
+        assertThat(resolver.resolve("alice", "team-a-secret", "10.0.0.1")).isEqualTo(ClientId.of("alice", null));
+        assertThat(resolver.resolve("alice", null, "10.0.0.1")).isNotEqualTo(ClientId.of(null, "10.0.0.1"));
+    }
+}
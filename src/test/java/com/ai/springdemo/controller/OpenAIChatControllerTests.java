@@ -0,0 +1,54 @@
+package com.ai.springdemo.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+class OpenAIChatControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rejectsAStreamedTemplateWithMissingVariablesBeforeStreaming() {
+        double activeStreams = activeStreams();
+
+        webTestClient.post().uri("/openai/api/prompt-templates/rewrite/chat-stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue("{\"variables\":{\"tone\":\"friendly\"}}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Validation ran before a resumable stream was opened, so there is nothing left to resume or retire
+        assertThat(activeStreams()).isEqualTo(activeStreams);
+    }
+
+    @Test
+    void rejectsAStreamedUnknownTemplateWithNotFound() {
+        double activeStreams = activeStreams();
+
+        webTestClient.post().uri("/openai/api/prompt-templates/no-such-template/chat-stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue("{\"variables\":{}}")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        assertThat(activeStreams()).isEqualTo(activeStreams);
+    }
+
+    private double activeStreams() {
+        return meterRegistry.get("llm.stream.active").gauge().value();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ai.springdemo.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobLogTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsWithTheirOffsetsAfterReopen() throws IOException {
+        Path file = dir.resolve("jobs.log");
+        String id = UUID.randomUUID().toString();
+        long submitAt;
+        long completeAt;
+        try (JobLog log = new JobLog(file)) {
+            submitAt = log.append(JobLog.SUBMIT, id, 1L, "{\"operation\":\"answer\"}");
+            completeAt = log.append(JobLog.COMPLETE, id, 2L, "{\"answer\":\"ol\u00e1\"}");
+        }
+
+        List<String> records = new ArrayList<>();
+        try (JobLog log = new JobLog(file)) {
+            log.replay((type, jobId, timestamp, payload, offset) ->
+                    records.add(type + ":" + jobId + ":" + timestamp + ":" + payload + "@" + offset));
+            assertThat(log.read(completeAt)).isEqualTo("{\"answer\":\"ol\u00e1\"}");
+        }
+
+        assertThat(submitAt).isZero();
+        assertThat(records).containsExactly(
+                "1:" + id + ":1:{\"operation\":\"answer\"}@0",
+                "2:" + id + ":2:{\"answer\":\"ol\u00e1\"}@" + completeAt);
+    }
+
+    @Test
+    void truncatesATornTailAndAppendsAfterTheLastWholeRecord() throws IOException {
+        Path file = dir.resolve("jobs.log");
+        String id = UUID.randomUUID().toString();
+        long end;
+        try (JobLog log = new JobLog(file)) {
+            log.append(JobLog.SUBMIT, id, 1L, "{}");
+            end = log.append(JobLog.COMPLETE, id, 2L, "\"done\"");
+        }
+        // A crash part-way through the second record: its length is there but the body is cut short
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(end + 10);
+        }
+
+        List<Byte> types = new ArrayList<>();
+        long appended;
+        try (JobLog log = new JobLog(file)) {
+            log.replay((type, jobId, timestamp, payload, offset) -> types.add(type));
+            appended = log.append(JobLog.FAIL, id, 3L, "boom");
+            assertThat(log.read(appended)).isEqualTo("boom");
+        }
+
+        assertThat(types).containsExactly(JobLog.SUBMIT);
+        assertThat(appended).isEqualTo(end);
+        List<Byte> replayed = new ArrayList<>();
+        try (JobLog log = new JobLog(file)) {
+            log.replay((type, jobId, timestamp, payload, offset) -> replayed.add(type));
+        }
+        assertThat(replayed).containsExactly(JobLog.SUBMIT, JobLog.FAIL);
+    }
+
+    @Test
+    void stopsAtALengthThatCannotBeARecord() throws IOException {
+        Path file = dir.resolve("jobs.log");
+        String id = UUID.randomUUID().toString();
+        long end;
+        try (JobLog log = new JobLog(file)) {
+            log.append(JobLog.SUBMIT, id, 1L, "{}");
+            end = Files.size(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putInt(3).putInt(0).flip(), end);
+        }
+
+        List<Byte> types = new ArrayList<>();
+        try (JobLog log = new JobLog(file)) {
+            log.replay((type, jobId, timestamp, payload, offset) -> types.add(type));
+        }
+
+        assertThat(types).containsExactly(JobLog.SUBMIT);
+        assertThat(Files.size(file)).isEqualTo(end);
+    }
+
+    @Test
+    void rewriteKeepsOnlyTheEmittedRecordsAndReportsTheirNewOffsets() throws IOException {
+        Path file = dir.resolve("jobs.log");
+        String dropped = UUID.randomUUID().toString();
+        String kept = UUID.randomUUID().toString();
+        try (JobLog log = new JobLog(file)) {
+            log.append(JobLog.SUBMIT, dropped, 1L, "{}");
+            log.append(JobLog.COMPLETE, dropped, 2L, "\"old\"");
+            log.append(JobLog.SUBMIT, kept, 3L, "{}");
+            long result = log.append(JobLog.COMPLETE, kept, 4L, "\"kept\"");
+
+            long[] moved = new long[1];
+            log.rewrite(target -> {
+                target.append(JobLog.SUBMIT, kept, 3L, "{}");
+                moved[0] = target.append(JobLog.COMPLETE, kept, 4L, log.read(result));
+            });
+
+            assertThat(log.read(moved[0])).isEqualTo("\"kept\"");
+            List<String> ids = new ArrayList<>();
+            log.replay((type, jobId, timestamp, payload, offset) -> ids.add(jobId));
+            assertThat(ids).containsExactly(kept, kept);
+        }
+    }
+
+    @Test
+    void refusesToReadPastTheEndOfTheLog() throws IOException {
+        try (JobLog log = new JobLog(dir.resolve("jobs.log"))) {
+            log.append(JobLog.SUBMIT, UUID.randomUUID().toString(), 1L, "{}");
+
+            assertThatThrownBy(() -> log.read(4096)).isInstanceOf(IOException.class);
+        }
+    }
+}
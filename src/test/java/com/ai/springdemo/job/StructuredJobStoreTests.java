@@ -0,0 +1,86 @@
+package com.ai.springdemo.job;
+
+import com.ai.springdemo.dto.StructuredOutputRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StructuredJobStoreTests {
+
+    @TempDir
+    Path dir;
+
+    private final List<StructuredJobStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() throws IOException {
+        for (StructuredJobStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    void keepsResultsInTheLogAndRestoresJobsWithTheirOwner() throws IOException {
+        StructuredJobStore store = open(Duration.ofHours(1));
+        StructuredJob done = store.submit("key:alice", "answer", request("What is GCRA?"));
+        StructuredJob failed = store.submit("key:alice", "trip-plan", request("Lisbon"));
+        StructuredJob pending = store.submit("addr:10.0.0.1", "trip-guide", request("Porto"));
+        store.complete(done, "{\"answer\":\"a rate limiter\"}");
+        store.fail(failed, "model unavailable");
+
+        assertThat(store.result(done)).isEqualTo("{\"answer\":\"a rate limiter\"}");
+        stores.remove(store);
+        store.close();
+
+        StructuredJobStore restored = open(Duration.ofHours(1));
+        StructuredJob restoredDone = restored.get(done.getId()).orElseThrow();
+        assertThat(restoredDone.getOwner()).isEqualTo("key:alice");
+        assertThat(restoredDone.getStatus()).isEqualTo(StructuredJob.Status.SUCCEEDED);
+        assertThat(restored.result(restoredDone)).isEqualTo("{\"answer\":\"a rate limiter\"}");
+        assertThat(restored.get(failed.getId()).orElseThrow().getError()).isEqualTo("model unavailable");
+        assertThat(restored.pending()).extracting(StructuredJob::getId).containsExactly(pending.getId());
+        assertThat(restored.pending().get(0).getRequest().getMessage()).isEqualTo("Porto");
+    }
+
+    @Test
+    void compactionDropsExpiredJobsAndMovesResultOffsets() throws IOException, InterruptedException {
+        StructuredJobStore store = open(Duration.ofMillis(50));
+        StructuredJob expired = store.submit("key:alice", "answer", request("first"));
+        store.complete(expired, "\"first\"");
+        Thread.sleep(100);
+        StructuredJob fresh = store.submit("key:alice", "answer", request("second"));
+        store.complete(fresh, "\"second\"");
+        long before = fresh.getResultOffset();
+
+        store.compact();
+
+        assertThat(store.get(expired.getId())).isEmpty();
+        assertThat(fresh.getResultOffset()).isLessThan(before);
+        assertThat(store.result(fresh)).isEqualTo("\"second\"");
+    }
+
+    private StructuredJobStore open(Duration ttl) throws IOException {
+        StructuredJobStore store = new StructuredJobStore(new ObjectMapper());
+        ReflectionTestUtils.setField(store, "logFile", dir.resolve("jobs.log"));
+        ReflectionTestUtils.setField(store, "ttl", ttl);
+        store.init();
+        stores.add(store);
+        return store;
+    }
+
+    private static StructuredOutputRequest request(String message) {
+        StructuredOutputRequest request = new StructuredOutputRequest();
+        request.setMessage(message);
+        return request;
+    }
+}
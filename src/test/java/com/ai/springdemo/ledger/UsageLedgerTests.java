@@ -0,0 +1,176 @@
+package com.ai.springdemo.ledger;
+
+import com.ai.springdemo.dto.UsageRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsageLedgerTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rollsUpRecordedCallsPerProviderModelAndEndpoint() throws Exception {
+        UsageLedger ledger = open(1024);
+        ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_OK, 100, 20, 50, millis(200));
+        ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_ERROR, 10, 0, 0, millis(100));
+        ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_CANCELLED, 30, 0, 5, millis(300));
+        ledger.record("ollama", "llama3", "/structured/answer", UsageLedger.STATUS_OK, 7, 0, 3, millis(50));
+        ledger.close();
+
+        List<UsageRollup> openai = rollup(ledger, "openai", null);
+        assertThat(sum(openai, UsageRollup::requests)).isEqualTo(3);
+        assertThat(sum(openai, UsageRollup::errors)).isEqualTo(1);
+        assertThat(sum(openai, UsageRollup::cancelled)).isEqualTo(1);
+        assertThat(sum(openai, UsageRollup::inputTokens)).isEqualTo(140);
+        assertThat(sum(openai, UsageRollup::cachedTokens)).isEqualTo(20);
+        assertThat(sum(openai, UsageRollup::outputTokens)).isEqualTo(55);
+        assertThat(openai).allSatisfy(rollup -> {
+            assertThat(rollup.model()).isEqualTo("gpt-4o-mini");
+            assertThat(rollup.endpoint()).isEqualTo("/chat");
+        });
+        assertThat(rollup(ledger, null, "/structured/answer"))
+                .singleElement()
+                .satisfies(rollup -> {
+                    assertThat(rollup.provider()).isEqualTo("ollama");
+                    assertThat(rollup.avgLatencyMs()).isEqualTo(50.0);
+                });
+    }
+
+    @Test
+    void rollsToANewSegmentWhenTheCurrentOneIsFull() throws Exception {
+        UsageLedger ledger = open(2);
+        for (int i = 0; i < 5; i++) {
+            ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_OK, 1, 0, 1, millis(1));
+        }
+        ledger.close();
+
+        assertThat(segments()).hasSize(3);
+        assertThat(sum(rollup(ledger, null, null), UsageRollup::requests)).isEqualTo(5);
+    }
+
+    @Test
+    void keepsOneDictionaryEntryPerSanitizedNameAcrossRestarts() throws Exception {
+        UsageLedger first = open(1024);
+        first.record("openai", "gpt\r\n4", "/chat", UsageLedger.STATUS_OK, 1, 0, 1, millis(1));
+        first.close();
+
+        UsageLedger second = open(1024);
+        second.record("openai", "gpt\r\n4", "/chat", UsageLedger.STATUS_OK, 1, 0, 1, millis(1));
+        second.close();
+
+        assertThat(Files.readAllLines(dir.resolve("dictionary.txt"), StandardCharsets.UTF_8))
+                .containsExactly("openai", "gpt  4", "/chat");
+        assertThat(rollup(second, null, null)).extracting(UsageRollup::model).containsOnly("gpt  4");
+        assertThat(sum(rollup(second, null, null), UsageRollup::requests)).isEqualTo(2);
+    }
+
+    @Test
+    void deletesSegmentsWhoseSuccessorStartedBeforeTheRetentionCutoff() throws Exception {
+        long now = System.currentTimeMillis();
+        Path oldest = segment(now - Duration.ofDays(40).toMillis());
+        Path older = segment(now - Duration.ofDays(35).toMillis());
+        Path recent = segment(now - Duration.ofDays(1).toMillis());
+        UsageLedger ledger = open(1024);
+
+        ledger.deleteExpiredSegments();
+        ledger.close();
+
+        assertThat(segments()).containsExactly(older, recent);
+        assertThat(oldest).doesNotExist();
+    }
+
+    @Test
+    void keepsEveryRecordFromConcurrentCallers() throws Exception {
+        UsageLedger ledger = open(4096);
+        ReflectionTestUtils.setField(ledger, "maxQueue", 100_000);
+        List<Thread> callers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread caller = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_OK, 1, 0, 1, millis(1));
+                    if (i % 500 == 0) {
+                        // Let the writer drain and park, so later records have to wake it
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                    }
+                }
+            });
+            callers.add(caller);
+            caller.start();
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        ledger.close();
+
+        assertThat(sum(rollup(ledger, "openai", null), UsageRollup::requests)).isEqualTo(16_000);
+    }
+
+    @Test
+    void dropsRecordsOnceTheQueueBoundIsReached() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UsageLedger ledger = new UsageLedger(meterRegistry);
+        ReflectionTestUtils.setField(ledger, "maxQueue", 3);
+        // Accepting records with no writer draining them, so the queue only fills
+        ReflectionTestUtils.setField(ledger, "running", true);
+
+        for (int i = 0; i < 5; i++) {
+            ledger.record("openai", "gpt-4o-mini", "/chat", UsageLedger.STATUS_OK, 1, 0, 1, millis(1));
+        }
+
+        assertThat(meterRegistry.counter("llm.ledger.dropped").count()).isEqualTo(2);
+    }
+
+    private UsageLedger open(int segmentRecords) throws IOException {
+        UsageLedger ledger = new UsageLedger(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "directory", dir);
+        ReflectionTestUtils.setField(ledger, "segmentRecords", segmentRecords);
+        ReflectionTestUtils.setField(ledger, "maxQueue", 1024);
+        ReflectionTestUtils.setField(ledger, "retention", Duration.ofDays(30));
+        ledger.init();
+        return ledger;
+    }
+
+    private static List<UsageRollup> rollup(UsageLedger ledger, String provider, String endpoint) throws IOException {
+        Instant now = Instant.now();
+        return ledger.rollup(now.minus(1, ChronoUnit.HOURS), now.plus(1, ChronoUnit.MINUTES), ChronoUnit.MINUTES,
+                provider, null, endpoint);
+    }
+
+    private static long sum(List<UsageRollup> rollups, ToLongFunction<UsageRollup> field) {
+        return rollups.stream().mapToLong(field).sum();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private Path segment(long start) throws IOException {
+        return Files.createFile(dir.resolve(String.format("usage-%013d.seg", start)));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ai.springdemo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HedgingExecutorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HedgingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        OllamaBackendPool pool = mock(OllamaBackendPool.class);
+        when(pool.getBackendCount()).thenReturn(2);
+        executor = new HedgingExecutor(meterRegistry, pool);
+        ReflectionTestUtils.setField(executor, "enabled", true);
+        ReflectionTestUtils.setField(executor, "primary", "ollama");
+        ReflectionTestUtils.setField(executor, "secondary", "ollama");
+        ReflectionTestUtils.setField(executor, "percentile", 0.95);
+        ReflectionTestUtils.setField(executor, "minDelay", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(executor, "initialDelay", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(executor, "deadline", Duration.ofSeconds(5));
+        executor.validate();
+    }
+
+    @Test
+    void hedgesAStalledPrimaryAndCancelsItOnceTheHedgeAnswers() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        List<String> chunks = executor.execute(provider -> calls.incrementAndGet() == 1
+                        ? Flux.<String>never().doOnCancel(() -> primaryCancelled.set(true))
+                        : Flux.just("Hel", "lo"), 100)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(chunks).containsExactly("Hel", "lo");
+        assertThat(calls).hasValue(2);
+        assertThat(primaryCancelled).isTrue();
+        assertThat(meterRegistry.counter("llm.hedge.fired", "secondary", "ollama").count()).isEqualTo(1);
+        awaitOutcome();
+        assertThat(meterRegistry.counter("llm.hedge.won", "winner", "secondary").count()).isEqualTo(1);
+        assertThat(meterRegistry.summary("llm.hedge.tokens.wasted").totalAmount()).isEqualTo(100);
+    }
+
+    @Test
+    void sendsNoHedgeWhenThePrimaryAnswersInTime() {
+        AtomicInteger calls = new AtomicInteger();
+
+        List<String> chunks = executor.execute(provider -> {
+            calls.incrementAndGet();
+            return Flux.just("fast");
+        }, 100).collectList().block(Duration.ofSeconds(5));
+
+        assertThat(chunks).containsExactly("fast");
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.find("llm.hedge.fired").counter()).isNull();
+    }
+
+    @Test
+    void routesTheHedgeToADifferentOllamaBackendThanThePrimary() {
+        OllamaChatModel stalledModel = mock(OllamaChatModel.class);
+        when(stalledModel.stream(any(Prompt.class))).thenReturn(Flux.never());
+        OllamaChatModel healthyModel = mock(OllamaChatModel.class);
+        when(healthyModel.stream(any(Prompt.class))).thenReturn(
+                Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("ok"))))));
+        OllamaBackend stalled = new OllamaBackend("http://stalled:11434", stalledModel, 3);
+        OllamaBackend healthy = new OllamaBackend("http://healthy:11434", healthyModel, 3);
+        // The stalled host has not reported a latency yet, so even with the primary outstanding it still scores
+        // better than the healthy one and would win the hedge too without the exclusion
+        healthy.recordLatency(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50));
+        ChatClient chatClient = ChatClient.create(new RoutingOllamaChatModel(List.of(stalled, healthy),
+                OllamaChatOptions.builder().model("llama3").build(), 0.5));
+
+        String answer = executor.execute(provider -> chatClient.prompt("hi").stream().content(), 10)
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(answer).isEqualTo("ok");
+        verify(stalledModel, times(1)).stream(any(Prompt.class));
+        verify(healthyModel, times(1)).stream(any(Prompt.class));
+    }
+
+    /**
+     * The outcome is recorded in {@code doFinally}, which may run just after the subscriber saw completion.
+     */
+    private void awaitOutcome() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.summary("llm.hedge.tokens.wasted").count() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoryCompactorTests {
+
+    private static final String TURN = "The quick brown fox jumps over the lazy dog near the quiet river bank today.";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HistoryCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        compactor = new HistoryCompactor(meterRegistry);
+        ReflectionTestUtils.setField(compactor, "enabled", true);
+        ReflectionTestUtils.setField(compactor, "ollamaContextTokens", 300);
+        ReflectionTestUtils.setField(compactor, "defaultReserve", 50);
+        ReflectionTestUtils.setField(compactor, "safetyMargin", 0);
+        ReflectionTestUtils.setField(compactor, "trimBlock", 1);
+    }
+
+    @Test
+    void leavesAHistoryThatFitsUntouched() {
+        ChatRequest request = request(2, null);
+
+        assertThat(compactor.compact(ModelProvider.OLLAMA, request)).isSameAs(request);
+        assertThat(meterRegistry.find("llm.history.messages.trimmed").counter()).isNull();
+    }
+
+    @Test
+    void keepsTheNewestTurnsThatFitTheBudget() {
+        ChatRequest request = request(40, null);
+
+        ChatRequest compacted = compactor.compact(ModelProvider.OLLAMA, request);
+
+        int kept = fitting(250);
+        assertThat(compacted.getConversationHistory())
+                .isEqualTo(request.getConversationHistory().subList(40 - kept, 40));
+        assertThat(compactor.estimateTokens(compacted)).isLessThanOrEqualTo(250);
+        assertThat(meterRegistry.counter("llm.history.messages.trimmed", "provider", "ollama").count())
+                .isEqualTo(40 - kept);
+    }
+
+    @Test
+    void reservesTheRequestedOutputTokens() {
+        ChatRequest request = request(40, 150);
+
+        ChatRequest compacted = compactor.compact(ModelProvider.OLLAMA, request);
+
+        assertThat(compacted.getConversationHistory()).hasSize(fitting(150));
+    }
+
+    @Test
+    void trimsInWholeBlocksSoTheKeptPrefixStaysStable() {
+        ReflectionTestUtils.setField(compactor, "trimBlock", 8);
+
+        ChatRequest compacted = compactor.compact(ModelProvider.OLLAMA, request(40, null));
+
+        int kept = compacted.getConversationHistory().size();
+        assertThat((40 - kept) % 8).isZero();
+        assertThat(kept).isLessThanOrEqualTo(fitting(250)).isGreaterThan(fitting(250) - 8);
+    }
+
+    /**
+     * How many history turns fit next to the message in {@code budget} tokens.
+     */
+    private int fitting(int budget) {
+        int remaining = budget - compactor.estimateTokens((String) null) - compactor.estimateTokens("Go on");
+        return remaining / compactor.estimateTokens(TURN + 0);
+    }
+
+    private static ChatRequest request(int turns, Integer maxTokens) {
+        List<ChatRequest.ConversationMessage> history = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            // A one-digit suffix keeps every turn the same token count while telling them apart
+            history.add(new ChatRequest.ConversationMessage(i % 2 == 0 ? "user" : "assistant", TURN + (i % 10)));
+        }
+        ChatRequest request = new ChatRequest();
+        request.setMessage("Go on");
+        request.setConversationHistory(history);
+        if (maxTokens != null) {
+            ChatRequest.ChatOptions options = new ChatRequest.ChatOptions();
+            options.setMaxTokens(maxTokens);
+            request.setOptions(options);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ai.springdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonRepairTests {
+
+    @Test
+    void extractsTheDocumentFromFencesAndChatter() {
+        assertThat(JsonRepair.extract("Here you go:\n```json\n{\"a\": [1, 2]}\n```\nAnything else?"))
+                .isEqualTo("{\"a\": [1, 2]}");
+        assertThat(JsonRepair.extract("  no json here  ")).isEqualTo("no json here");
+        assertThat(JsonRepair.extract("{\"a\": 1")).isEqualTo("{\"a\": 1");
+        assertThat(JsonRepair.extract(null)).isNull();
+    }
+
+    @Test
+    void dropsTrailingCommas() {
+        assertThat(JsonRepair.repair("{\"a\": [1, 2, ], \"b\": 3, }")).isEqualTo("{\"a\": [1, 2], \"b\": 3}");
+    }
+
+    @Test
+    void closesTruncatedStructures() {
+        assertThat(JsonRepair.repair("{\"a\": [1, {\"b\": 2")).isEqualTo("{\"a\": [1, {\"b\": 2}]}");
+        assertThat(JsonRepair.repair("[\"x\", \"y\",")).isEqualTo("[\"x\", \"y\"]");
+    }
+
+    @Test
+    void closesATruncatedStringAndFillsAMissingValue() {
+        assertThat(JsonRepair.repair("{\"a\": \"cut of")).isEqualTo("{\"a\": \"cut of\"}");
+        assertThat(JsonRepair.repair("{\"a\": \"ends on escape\\")).isEqualTo("{\"a\": \"ends on escape\"}");
+        assertThat(JsonRepair.repair("{\"a\": ")).isEqualTo("{\"a\": null}");
+    }
+
+    @Test
+    void leavesBracketsInsideStringsAlone() {
+        assertThat(JsonRepair.repair("{\"a\": \"[}\\\"{,\"}")).isEqualTo("{\"a\": \"[}\\\"{,\"}");
+    }
+
+    @Test
+    void dropsStrayClosers() {
+        assertThat(JsonRepair.repair("{\"a\": 1}}")).isEqualTo("{\"a\": 1}");
+        assertThat(JsonRepair.repair("{\"a\": [1}")).isEqualTo("{\"a\": [1]}");
+    }
+
+    @Test
+    void listAndMapConvertersRepairTruncatedOutput() {
+        OutputConverterRegistry converters = new OutputConverterRegistry(new ObjectMapper());
+
+        List<String> spots = converters.list().convert("```json\n[\"Belem Tower\", \"Alfama\", \"LX Fact");
+        Map<String, Object> guide = converters.map().convert("{\"city\": \"Lisbon\", \"days\": 2, \"tips\": [\"tram 28\",");
+
+        assertThat(spots).containsExactly("Belem Tower", "Alfama", "LX Fact");
+        assertThat(guide).containsEntry("city", "Lisbon").containsEntry("days", 2);
+        assertThat(guide.get("tips")).isEqualTo(List.of("tram 28"));
+    }
+
+    @Test
+    void convertersReportOutputThatCannotBeRepaired() {
+        OutputConverterRegistry converters = new OutputConverterRegistry(new ObjectMapper());
+
+        assertThatThrownBy(() -> converters.map().convert("{\"city\" \"Lisbon\"}"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("could not be parsed or repaired");
+    }
+}
@@ -0,0 +1,126 @@
+package com.ai.springdemo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.ai.springdemo.service.RequestPriority.BATCH;
+import static com.ai.springdemo.service.RequestPriority.INTERACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderBulkheadTests {
+
+    private static final ModelProvider PROVIDER = ModelProvider.OLLAMA;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RequestPriority> granted = new CopyOnWriteArrayList<>();
+
+    @Test
+    void capsAClassAtItsShareWhileOthersStillGetFreeSlots() {
+        ProviderBulkhead bulkhead = bulkhead(2, "200ms", "5s");
+
+        bulkhead.acquire(PROVIDER, BATCH);
+        queue(bulkhead, BATCH);
+        bulkhead.acquire(PROVIDER, INTERACTIVE);
+
+        assertThat(granted).isEmpty();
+        assertThat(active(BATCH)).isEqualTo(1);
+        assertThat(active(INTERACTIVE)).isEqualTo(1);
+
+        bulkhead.release(PROVIDER, BATCH);
+
+        assertThat(granted).containsExactly(BATCH);
+        assertThat(active(BATCH)).isEqualTo(1);
+    }
+
+    @Test
+    void timesOutAClassThatIsAtItsShareEvenWithASlotFree() {
+        ProviderBulkhead bulkhead = bulkhead(2, "50ms", "5s");
+        bulkhead.acquire(PROVIDER, BATCH);
+
+        assertThatThrownBy(() -> bulkhead.acquire(PROVIDER, BATCH))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("Timed out");
+        assertThat(queued(BATCH)).isZero();
+        assertThat(meterRegistry.counter("llm.bulkhead.rejected", "provider", PROVIDER.getId(),
+                "priority", BATCH.getId()).count()).isEqualTo(1);
+    }
+
+    @Test
+    void grantsFreedSlotsInProportionToClassWeight() {
+        ProviderBulkhead bulkhead = bulkhead(1, "5s", "5s");
+        bulkhead.acquire(PROVIDER, INTERACTIVE);
+        for (int i = 0; i < 4; i++) {
+            queue(bulkhead, BATCH);
+            queue(bulkhead, INTERACTIVE);
+        }
+
+        bulkhead.release(PROVIDER, INTERACTIVE);
+        for (int i = 0; i < 7; i++) {
+            bulkhead.release(PROVIDER, granted.get(i));
+        }
+
+        // Weight 4 against weight 1: interactive runs four times for every batch turn until its queue drains
+        assertThat(granted).containsExactly(INTERACTIVE, BATCH, INTERACTIVE, INTERACTIVE, INTERACTIVE,
+                BATCH, BATCH, BATCH);
+    }
+
+    @Test
+    void servesAStarvedWaiterBeforeHeavierClasses() throws InterruptedException {
+        ProviderBulkhead bulkhead = bulkhead(1, "5s", "50ms");
+        bulkhead.acquire(PROVIDER, INTERACTIVE);
+        queue(bulkhead, BATCH);
+        Thread.sleep(100);
+        queue(bulkhead, INTERACTIVE);
+        queue(bulkhead, INTERACTIVE);
+
+        bulkhead.release(PROVIDER, INTERACTIVE);
+
+        assertThat(granted).containsExactly(BATCH);
+    }
+
+    @Test
+    void rejectsOnceTheQueueIsFull() {
+        MockEnvironment environment = environment(1, "5s", "5s")
+                .withProperty("app.bulkhead.ollama.max-queue", "1");
+        ProviderBulkhead bulkhead = new ProviderBulkhead(environment, meterRegistry);
+        bulkhead.acquire(PROVIDER, INTERACTIVE);
+        queue(bulkhead, INTERACTIVE);
+
+        assertThatThrownBy(() -> bulkhead.acquire(PROVIDER, INTERACTIVE))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("Too many queued");
+    }
+
+    private ProviderBulkhead bulkhead(int maxConcurrent, String maxWait, String starvationThreshold) {
+        return new ProviderBulkhead(environment(maxConcurrent, maxWait, starvationThreshold), meterRegistry);
+    }
+
+    private static MockEnvironment environment(int maxConcurrent, String maxWait, String starvationThreshold) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        return environment
+                .withProperty("app.bulkhead.ollama.max-concurrent", String.valueOf(maxConcurrent))
+                .withProperty("app.bulkhead.ollama.max-wait", maxWait)
+                .withProperty("app.scheduler.starvation-threshold", starvationThreshold);
+    }
+
+    private void queue(ProviderBulkhead bulkhead, RequestPriority priority) {
+        bulkhead.acquireReactive(PROVIDER, priority).subscribe(null, null, () -> granted.add(priority));
+    }
+
+    private double active(RequestPriority priority) {
+        return meterRegistry.get("llm.bulkhead.active").tag("provider", PROVIDER.getId())
+                .tag("priority", priority.getId()).gauge().value();
+    }
+
+    private double queued(RequestPriority priority) {
+        return meterRegistry.get("llm.bulkhead.queue.depth").tag("provider", PROVIDER.getId())
+                .tag("priority", priority.getId()).gauge().value();
+    }
+}
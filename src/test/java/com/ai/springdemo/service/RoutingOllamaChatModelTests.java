@@ -0,0 +1,84 @@
+package com.ai.springdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.ollama.OllamaChatModel;
+import org.springframework.ai.ollama.api.OllamaChatOptions;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoutingOllamaChatModelTests {
+
+    private static final String MODEL = "llama3";
+
+    private final OllamaChatModel loadedModel = model();
+    private final OllamaChatModel idleModel = model();
+    private final OllamaBackend loaded = new OllamaBackend("http://loaded:11434", loadedModel, 3);
+    private final OllamaBackend idle = new OllamaBackend("http://idle:11434", idleModel, 3);
+    private final RoutingOllamaChatModel routing = new RoutingOllamaChatModel(List.of(loaded, idle),
+            OllamaChatOptions.builder().model(MODEL).build(), 0.5);
+
+    @Test
+    void prefersTheBackendWithTheModelLoadedWhenLoadIsEqual() {
+        loaded.healthCheckPassed(Set.of(MODEL));
+        idle.healthCheckPassed(Set.of());
+        idle.begin();
+        loaded.begin();
+
+        routing.stream(new Prompt("hi")).blockLast();
+
+        verify(loadedModel).stream(any(Prompt.class));
+        verify(idleModel, never()).stream(any(Prompt.class));
+    }
+
+    @Test
+    void sendsASaturatedLoadedBackendsTrafficToAnIdleOne() {
+        loaded.healthCheckPassed(Set.of(MODEL));
+        idle.healthCheckPassed(Set.of());
+        for (int i = 0; i < 4; i++) {
+            loaded.begin();
+        }
+
+        // 5 * 0.5 for the loaded host against 1 for the idle one
+        routing.stream(new Prompt("hi")).blockLast();
+
+        verify(idleModel).stream(any(Prompt.class));
+        verify(loadedModel, never()).stream(any(Prompt.class));
+    }
+
+    @Test
+    void spreadsStreamsThatShareARoutedBackendsSetOverDistinctHosts() {
+        loaded.healthCheckPassed(Set.of(MODEL));
+        idle.healthCheckPassed(Set.of());
+        Set<String> routed = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < 3; i++) {
+            routing.stream(new Prompt("hi"))
+                    .contextWrite(Context.of(RoutingOllamaChatModel.ROUTED_BACKENDS, routed))
+                    .blockLast();
+        }
+
+        // Once every host is taken the set no longer restricts the choice
+        assertThat(routed).containsExactlyInAnyOrder(loaded.getBaseUrl(), idle.getBaseUrl());
+        verify(loadedModel, times(2)).stream(any(Prompt.class));
+        verify(idleModel).stream(any(Prompt.class));
+    }
+
+    private static OllamaChatModel model() {
+        OllamaChatModel model = mock(OllamaChatModel.class);
+        when(model.stream(any(Prompt.class))).thenReturn(Flux.empty());
+        return model;
+    }
+}
@@ -0,0 +1,133 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.PartialPlan;
+import com.ai.springdemo.dto.Plan;
+import com.ai.springdemo.dto.TripPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StructuredStreamParserTests {
+
+    private static final String TRIP = """
+            {"destination": "Lisbon", "totalDays": 2, "plans": [
+              {"from": "Porto", "to": "Lisbon", "transport": "train"},
+              {"from": "Lisbon", "to": "Sintra", "transport": "bus"}
+            ]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void emitsEachPlanAsSoonAsItClosesWhenFedOneCharacterAtATime() {
+        StructuredStreamParser parser = parser(false);
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        int firstPlanAt = -1;
+        for (int i = 0; i < TRIP.length(); i++) {
+            events.addAll(parser.feed(String.valueOf(TRIP.charAt(i))));
+            if (firstPlanAt < 0 && !events.isEmpty()) {
+                firstPlanAt = i;
+            }
+        }
+        events.addAll(parser.finish());
+
+        assertThat(firstPlanAt).isEqualTo(TRIP.indexOf('}'));
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("plan", "plan", "trip-plan");
+        PartialPlan second = (PartialPlan) events.get(1).data();
+        assertThat(second.trip()).isZero();
+        assertThat(second.index()).isEqualTo(1);
+        assertThat(second.plan().to()).isEqualTo("Sintra");
+        TripPlan tripPlan = (TripPlan) events.get(2).data();
+        assertThat(tripPlan.destination()).isEqualTo("Lisbon");
+        assertThat(tripPlan.plans()).extracting(Plan::transport).containsExactly("train", "bus");
+    }
+
+    @Test
+    void skipsPreambleAndIgnoresTextAfterTheDocument() {
+        StructuredStreamParser parser = parser(false);
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+
+        events.addAll(parser.feed("Sure! Here it is:\n```json\n"));
+        events.addAll(parser.feed(TRIP.substring(0, 40)));
+        events.addAll(parser.feed(TRIP.substring(40) + "\n```\nEnjoy {"));
+        events.addAll(parser.finish());
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("plan", "plan", "trip-plan");
+    }
+
+    @Test
+    void numbersTripsInAListRoot() {
+        StructuredStreamParser parser = parser(true);
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+
+        events.addAll(parser.feed("[" + TRIP + ","));
+        events.addAll(parser.feed("{\"destination\": \"Faro\", \"plans\": [{\"to\": \"Lagos\"}]}]"));
+        events.addAll(parser.finish());
+
+        assertThat(events).extracting(ServerSentEvent::event)
+                .containsExactly("plan", "plan", "trip-plan", "plan", "trip-plan");
+        PartialPlan last = (PartialPlan) events.get(3).data();
+        assertThat(last.trip()).isEqualTo(1);
+        assertThat(last.index()).isZero();
+        assertThat(last.plan().to()).isEqualTo("Lagos");
+    }
+
+    @Test
+    void acceptsNullPlans() {
+        StructuredStreamParser parser = parser(false);
+
+        List<ServerSentEvent<Object>> events = new ArrayList<>(parser.feed("{\"destination\": \"Faro\", \"plans\": null}"));
+        events.addAll(parser.finish());
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("trip-plan");
+    }
+
+    @Test
+    void rejectsTheWrongRootAsSoonAsItArrives() {
+        assertThatThrownBy(() -> parser(true).feed("{\"destination\""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Expected an array");
+    }
+
+    @Test
+    void rejectsPlansThatAreNotAnArray() {
+        assertThatThrownBy(() -> parser(false).feed("{\"plans\": \"none\""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("\"plans\" to be an array");
+    }
+
+    @Test
+    void rejectsPlanEntriesThatAreNotObjects() {
+        assertThatThrownBy(() -> parser(false).feed("{\"plans\": [42,"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("each plan to be an object");
+    }
+
+    @Test
+    void failsOnMalformedJson() {
+        assertThatThrownBy(() -> parser(false).feed("{\"destination\" \"Faro\"}"))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Malformed JSON");
+    }
+
+    @Test
+    void failsWhenTheOutputEndsEarly() {
+        StructuredStreamParser parser = parser(false);
+        List<ServerSentEvent<Object>> events = parser.feed(TRIP.substring(0, TRIP.lastIndexOf(']')));
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("plan", "plan");
+        // Jackson reports the unexpected end itself; either way the stream must fail rather than finish quietly
+        assertThatThrownBy(parser::finish).isInstanceOf(RuntimeException.class);
+    }
+
+    private StructuredStreamParser parser(boolean listRoot) {
+        return new StructuredStreamParser(objectMapper, objectMapper.readerFor(Plan.class),
+                objectMapper.readerFor(TripPlan.class), listRoot);
+    }
+}
@@ -0,0 +1,136 @@
+package com.ai.springdemo.service;
+
+import com.ai.springdemo.dto.ChatRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.Mockito.mock;
+
+class TokenRateLimiterTests {
+
+    private static final ClientId ALICE = ClientId.of("alice", "10.0.0.1");
+    private static final ClientId BOB = ClientId.of("bob", "10.0.0.1");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TokenRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // One token per millisecond and a 100-token burst keep the arithmetic readable
+        limiter = new TokenRateLimiter(mock(HistoryCompactor.class), meterRegistry, 1000);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "tokensPerMinute", 60_000L);
+        ReflectionTestUtils.setField(limiter, "burstTokens", 100L);
+        ReflectionTestUtils.setField(limiter, "maxWait", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(limiter, "maxQueue", 8);
+        ReflectionTestUtils.setField(limiter, "defaultMaxTokens", 512);
+    }
+
+    @Test
+    void admitsAFullBurstWithoutWaiting() {
+        limiter.admit(ALICE, tokens(100));
+
+        assertThat(meterRegistry.timer("llm.ratelimit.wait").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("llm.ratelimit.wait").totalTime(TimeUnit.NANOSECONDS)).isZero();
+    }
+
+    @Test
+    void waitsForTheSlotItReservedWhenThatFitsWithinMaxWait() {
+        limiter.admit(ALICE, tokens(100));
+
+        long start = System.nanoTime();
+        limiter.admit(ALICE, tokens(30));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(waitedMillis).isGreaterThanOrEqualTo(20L);
+    }
+
+    @Test
+    void rejectsWhenTheSlotLiesBeyondMaxWait() {
+        limiter.admit(ALICE, tokens(100));
+
+        RateLimitExceededException ex = catchThrowableOfType(RateLimitExceededException.class,
+                () -> limiter.admit(ALICE, tokens(80)));
+
+        assertThat(ex).isNotNull();
+        assertThat(ex.getRetryAfter()).isBetween(Duration.ofMillis(60), Duration.ofMillis(80));
+        assertThat(ex.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.counter("llm.ratelimit.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void chargesRequestsLargerThanTheBurstInFull() {
+        limiter.admit(ALICE, tokens(300));
+
+        // 200 tokens of debt remain, far more than the next request may wait for
+        RateLimitExceededException ex = catchThrowableOfType(RateLimitExceededException.class,
+                () -> limiter.admit(ALICE, tokens(1)));
+
+        assertThat(ex).isNotNull();
+        assertThat(ex.getRetryAfter()).isGreaterThan(Duration.ofMillis(150));
+    }
+
+    @Test
+    void oversizedRequestWaitsForAFullBucket() {
+        limiter.admit(ALICE, tokens(70));
+
+        assertThatThrownBy(() -> limiter.admit(ALICE, tokens(300)))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void keepsEachClientOnItsOwnBudget() {
+        limiter.admit(ALICE, tokens(100));
+
+        limiter.admit(BOB, tokens(100));
+
+        assertThatThrownBy(() -> limiter.admit(ALICE, tokens(100)))
+                .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void budgetsUnkeyedCallersByAddress() {
+        limiter.admit(ClientId.of(null, "10.0.0.1"), tokens(100));
+
+        limiter.admit(ClientId.of(" ", "10.0.0.2"), tokens(100));
+
+        assertThatThrownBy(() -> limiter.admit(ClientId.of(null, "10.0.0.1"), tokens(100)))
+                .isInstanceOf(RateLimitExceededException.class);
+        assertThat(ClientId.of("addr:10.0.0.1", null)).isNotEqualTo(ClientId.of(null, "10.0.0.1"));
+    }
+
+    @Test
+    void rejectsInsteadOfQueueingOnceTheClientQueueIsFull() {
+        ReflectionTestUtils.setField(limiter, "maxQueue", 0);
+        limiter.admit(ALICE, tokens(100));
+
+        assertThatThrownBy(() -> limiter.admit(ALICE, tokens(10)))
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("Too many queued");
+    }
+
+    @Test
+    void admitsEverythingWhenDisabled() {
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.admit(ALICE, tokens(100));
+        }
+
+        assertThat(meterRegistry.counter("llm.ratelimit.rejected").count()).isZero();
+    }
+
+    private static ChatRequest.ChatOptions tokens(int maxTokens) {
+        ChatRequest.ChatOptions options = new ChatRequest.ChatOptions();
+        options.setMaxTokens(maxTokens);
+        return options;
+    }
+}
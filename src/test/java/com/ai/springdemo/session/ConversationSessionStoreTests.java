@@ -0,0 +1,87 @@
+package com.ai.springdemo.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationSessionStoreTests {
+
+    private static final long CAPACITY = 4096;
+
+    @TempDir
+    Path dir;
+
+    private ConversationSessionStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void compactsTheLogSoEvictedSessionsStopGrowingIt() throws IOException {
+        ConversationSession keeper = store.create("keep");
+        store.appendTurn(keeper, "hello", "hi");
+
+        for (int i = 0; i < 50; i++) {
+            ConversationSession idle = store.create("idle " + i);
+            store.appendTurn(idle, "q".repeat(200), "a".repeat(200));
+            idle.touch(0);
+            store.evictIdle();
+        }
+
+        // Fifty evicted sessions would need several times the initial mapping without compaction
+        assertThat(Files.size(dir.resolve("sessions.log"))).isEqualTo(CAPACITY);
+        store.close();
+        store = open();
+        assertThat(store.get(keeper.getId())).hasValueSatisfying(session -> {
+            assertThat(session.getSystemPrompt()).isEqualTo("keep");
+            assertThat(session.history()).extracting("content").containsExactly("hello", "hi");
+        });
+    }
+
+    @Test
+    void leavesTheLogAloneWhileMostRecordsAreLive() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            store.appendTurn(store.create("live " + i), "q", "a");
+        }
+        ConversationSession idle = store.create("idle");
+        idle.touch(0);
+        long before = logSize();
+
+        store.evictIdle();
+
+        // One evicted session plus its delete marker is well under half of the log
+        assertThat(logSize()).isGreaterThan(before);
+        assertThat(store.get(idle.getId())).isEmpty();
+    }
+
+    private long logSize() {
+        SessionLog log = (SessionLog) ReflectionTestUtils.getField(store, "log");
+        return log.size();
+    }
+
+    private ConversationSessionStore open() throws IOException {
+        ConversationSessionStore opened = new ConversationSessionStore();
+        ReflectionTestUtils.setField(opened, "logFile", dir.resolve("sessions.log"));
+        ReflectionTestUtils.setField(opened, "initialLogSize", CAPACITY);
+        ReflectionTestUtils.setField(opened, "idleTimeout", Duration.ofHours(1));
+        ReflectionTestUtils.setField(opened, "compactionDeadRatio", 0.5);
+        opened.init();
+        return opened;
+    }
+}
@@ -0,0 +1,151 @@
+package com.ai.springdemo.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionLogTests {
+
+    private static final long CAPACITY = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsAfterReopen() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String id = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.append(SessionLog.CREATE, id, 1L, SessionLog.ROLE_NONE, "system");
+            log.append(SessionLog.APPEND, id, 2L, SessionLog.ROLE_USER, "h\u00e9llo");
+            log.append(SessionLog.APPEND, id, 3L, SessionLog.ROLE_ASSISTANT, null);
+        }
+
+        List<String> records = replay(file);
+
+        assertThat(records).containsExactly(
+                "1:" + id + ":1:0:system",
+                "2:" + id + ":2:1:h\u00e9llo",
+                "2:" + id + ":3:2:");
+    }
+
+    @Test
+    void ignoresRecordWhoseLengthWasNeverPublished() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String id = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.append(SessionLog.CREATE, id, 1L, SessionLog.ROLE_NONE, "system");
+        }
+        // A crash after the body was written but before the length: bytes past the end marker, length still zero
+        long end = endOfRecords(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {2, 7, 7, 7, 7, 7, 7, 7, 7}), end + 4);
+        }
+
+        assertThat(replay(file)).containsExactly("1:" + id + ":1:0:system");
+    }
+
+    @Test
+    void stopsAtLengthThatRunsPastTheFile() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String id = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.append(SessionLog.CREATE, id, 1L, SessionLog.ROLE_NONE, "system");
+        }
+        long end = endOfRecords(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), end);
+        }
+
+        assertThat(replay(file)).containsExactly("1:" + id + ":1:0:system");
+    }
+
+    @Test
+    void appendsAfterReplayContinueFromTheEndOfTheLog() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String id = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.append(SessionLog.CREATE, id, 1L, SessionLog.ROLE_NONE, "system");
+        }
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.replay((type, sessionId, timestamp, role, content) -> { });
+            log.append(SessionLog.APPEND, id, 2L, SessionLog.ROLE_USER, "x".repeat((int) CAPACITY));
+        }
+
+        assertThat(replay(file)).containsExactly(
+                "1:" + id + ":1:0:system",
+                "2:" + id + ":2:1:" + "x".repeat((int) CAPACITY));
+    }
+
+    @Test
+    void rewriteKeepsOnlyTheEmittedRecords() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String kept = UUID.randomUUID().toString();
+        String dropped = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.append(SessionLog.CREATE, kept, 1L, SessionLog.ROLE_NONE, "a");
+            log.append(SessionLog.CREATE, dropped, 2L, SessionLog.ROLE_NONE, "b");
+            log.append(SessionLog.DELETE, dropped, 3L, SessionLog.ROLE_NONE, null);
+            log.rewrite(target -> target.append(SessionLog.CREATE, kept, 1L, SessionLog.ROLE_NONE, "a"));
+            log.append(SessionLog.APPEND, kept, 4L, SessionLog.ROLE_USER, "c");
+        }
+
+        assertThat(replay(file)).containsExactly(
+                "1:" + kept + ":1:0:a",
+                "2:" + kept + ":4:1:c");
+    }
+
+    @Test
+    void refusesToGrowPastItsMaximumMapping() throws IOException {
+        Path file = dir.resolve("sessions.log");
+        String id = UUID.randomUUID().toString();
+        try (SessionLog log = new SessionLog(file, CAPACITY, 2 * CAPACITY)) {
+            log.append(SessionLog.CREATE, id, 1L, SessionLog.ROLE_NONE, "x".repeat((int) CAPACITY));
+
+            assertThatThrownBy(() -> log.append(SessionLog.APPEND, id, 2L, SessionLog.ROLE_USER,
+                    "y".repeat((int) CAPACITY)))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("is full");
+        }
+
+        assertThat(Files.size(file)).isEqualTo(2 * CAPACITY);
+        assertThat(replay(file)).containsExactly("1:" + id + ":1:0:" + "x".repeat((int) CAPACITY));
+    }
+
+    private static List<String> replay(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (SessionLog log = new SessionLog(file, CAPACITY)) {
+            log.replay((type, sessionId, timestamp, role, content) ->
+                    records.add(type + ":" + sessionId + ":" + timestamp + ":" + role + ":" + content));
+        }
+        return records;
+    }
+
+    private static long endOfRecords(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            long position = 0;
+            while (true) {
+                header.clear();
+                channel.read(header, position);
+                int length = header.getInt(0);
+                if (length == 0) {
+                    return position;
+                }
+                position += 4 + length;
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ai.springdemo.stream;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumableStreamTests {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private final ManualTimer timer = new ManualTimer();
+    private final Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+
+    @Test
+    void resumesOnlyWhileEveryLaterFrameIsStillBuffered() {
+        ResumableStream stream = connect(2, Duration.ZERO, 0);
+        emit("a", "b", "c");
+
+        assertThat(stream.canResumeAfter(-1)).isFalse();
+        assertThat(stream.canResumeAfter(0)).isFalse();
+        assertThat(stream.canResumeAfter(1)).isTrue();
+        assertThat(stream.canResumeAfter(3)).isTrue();
+        assertThat(stream.canResumeAfter(4)).isFalse();
+
+        source.tryEmitComplete();
+        assertThat(frames(stream, 1)).containsExactly("s:2=b", "s:3=c");
+    }
+
+    @Test
+    void flushesCoalescedChunksWhenTheIntervalElapses() {
+        ResumableStream stream = connect(16, Duration.ofMillis(50), 0);
+        emit("Hel", "lo");
+
+        assertThat(timer.tasks).hasSize(1);
+        assertThat(stream.canResumeAfter(1)).isFalse();
+
+        timer.tasks.get(0).run();
+        emit(" world");
+        source.tryEmitComplete();
+
+        assertThat(frames(stream, 0)).containsExactly("s:1=Hello", "s:2= world");
+        assertThat(timer.tasks).hasSize(2);
+        assertThat(timer.tasks.get(1).isDisposed()).isTrue();
+    }
+
+    @Test
+    void flushesEarlyOnceThePendingUtf8BytesReachTheLimit() {
+        ResumableStream stream = connect(16, HOUR, 4);
+        emit("ab", "\u00e9", "c");
+        emit("\u00e9\u00e9");
+
+        assertThat(timer.tasks).hasSize(2);
+        source.tryEmitComplete();
+
+        assertThat(frames(stream, 0)).containsExactly("s:1=ab\u00e9", "s:2=c\u00e9\u00e9");
+    }
+
+    @Test
+    void flushesWhatIsPendingBeforeSignallingAnError() {
+        ResumableStream stream = connect(16, HOUR, 0);
+        List<String> received = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        stream.events(0).subscribe(event -> received.add(event.data()), errors::add);
+
+        emit("partial");
+        source.tryEmitError(new IllegalStateException("model went away"));
+
+        assertThat(received).containsExactly("partial");
+        assertThat(errors).singleElement().isInstanceOf(IllegalStateException.class);
+        assertThat(stream.isDone()).isTrue();
+    }
+
+    private ResumableStream connect(int capacity, Duration interval, int maxBytes) {
+        ResumableStream stream = new ResumableStream("s", capacity, interval, maxBytes, timer);
+        stream.connect(source.asFlux(), () -> { });
+        return stream;
+    }
+
+    private void emit(String... chunks) {
+        for (String chunk : chunks) {
+            source.tryEmitNext(chunk);
+        }
+    }
+
+    private static List<String> frames(ResumableStream stream, long afterSeq) {
+        return stream.events(afterSeq)
+                .map(event -> event.id() + "=" + event.data())
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Holds delayed tasks until the test runs them, so flush timing does not depend on the wall clock.
+     */
+    private static final class ManualTimer implements Scheduler {
+
+        final List<Task> tasks = new ArrayList<>();
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return Schedulers.immediate().schedule(task);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            Task scheduled = new Task(task);
+            tasks.add(scheduled);
+            return scheduled;
+        }
+
+        @Override
+        public Worker createWorker() {
+            return Schedulers.immediate().createWorker();
+        }
+    }
+
+    private static final class Task implements Disposable, Runnable {
+
+        private final Runnable action;
+        private boolean disposed;
+
+        Task(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            if (!disposed) {
+                action.run();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}